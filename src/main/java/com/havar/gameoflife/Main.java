@@ -1,8 +1,15 @@
 package com.havar.gameoflife;
 
+import java.nio.file.Path;
+
 import com.havar.gameoflife.controller.GameOfLifeController;
 
-import com.havar.gameoflife.model.GameOfLifeLogic;
+import com.havar.gameoflife.journal.Journal;
+import com.havar.gameoflife.journal.JournalReplayer;
+import com.havar.gameoflife.journal.JournaledGameOfLife;
+import com.havar.gameoflife.model.AdaptiveGameOfLife;
+import com.havar.gameoflife.model.IGameOfLife;
+import com.havar.gameoflife.server.FrameServer;
 import com.havar.gameoflife.view.GameOfLifeView;
 
 import javafx.application.Application;
@@ -30,6 +37,25 @@ import javafx.stage.Stage;
  *
  */
 public class Main extends Application {
+	/**
+	 * Set this system property to a port number to stream the board to remote
+	 * viewers, see {@link FrameServer}.
+	 */
+	public static final String SERVER_PORT_PROPERTY = "gameoflife.server.port";
+	/**
+	 * Set this system property to an amount of generations to compute ahead of
+	 * the display on a background thread, see {@link GameOfLifeController#setLookAhead(int)}.
+	 */
+	public static final String LOOK_AHEAD_PROPERTY = "gameoflife.lookahead";
+	/**
+	 * Set this system property to a file to record all edits and settings in a
+	 * journal, which {@link JournalReplayer} can replay.
+	 */
+	public static final String JOURNAL_PROPERTY = "gameoflife.journal";
+
+	private GameOfLifeController controller;
+	private FrameServer frameServer;
+	private JournaledGameOfLife journaledModel;
 	
 	public static void main(String[] args) {
 		launch(args);
@@ -37,14 +63,38 @@ public class Main extends Application {
 	
 	@Override
 	public void start(Stage primaryStage) throws Exception {
-		GameOfLifeLogic model = new GameOfLifeLogic(100, 100);
+		IGameOfLife model = new AdaptiveGameOfLife(100, 100);
+		String journal = System.getProperty(JOURNAL_PROPERTY);
+		if (journal != null) {
+			journaledModel = new JournaledGameOfLife(model, new Journal(Path.of(journal)));
+			model = journaledModel;
+		}
 		GameOfLifeView view = new GameOfLifeView();
-		GameOfLifeController controller = new GameOfLifeController(model, view);
+		controller = new GameOfLifeController(model, view);
+		String port = System.getProperty(SERVER_PORT_PROPERTY);
+		if (port != null) {
+			frameServer = new FrameServer(Integer.parseInt(port));
+			controller.setFrameServer(frameServer);
+		}
+		controller.setLookAhead(Integer.getInteger(LOOK_AHEAD_PROPERTY, 0));
 		
 		setStage(primaryStage, view, controller);
 	    controller.execute();
 	}
 
+	@Override
+	public void stop() throws Exception {
+		if (controller != null) {
+			controller.close(); // Before the journal, so it ends at the generation on display
+		}
+		if (frameServer != null) {
+			frameServer.close();
+		}
+		if (journaledModel != null) {
+			journaledModel.close();
+		}
+	}
+
 	private void setStage(Stage primaryStage, GameOfLifeView view, GameOfLifeController controller) {
 		Scene scene = new Scene(view, 1000, 1100);
 	    primaryStage.setScene(scene);
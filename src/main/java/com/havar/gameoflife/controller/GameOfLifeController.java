@@ -1,11 +1,25 @@
 package com.havar.gameoflife.controller;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.DensityPyramid;
 import com.havar.gameoflife.model.IGameOfLife;
-import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithBordersStrategy;
-import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithWrapAroundStrategy;
+import com.havar.gameoflife.model.LookAheadBuffer;
+import com.havar.gameoflife.model.census.CensusResult;
+import com.havar.gameoflife.model.census.PatternCensus;
+import com.havar.gameoflife.model.history.GenerationHistory;
+import com.havar.gameoflife.model.rules.ConwayRule;
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import com.havar.gameoflife.model.rules.LargerThanLifeRule;
+import com.havar.gameoflife.model.rules.Rule;
+import com.havar.gameoflife.server.FrameServer;
 import com.havar.gameoflife.view.GameOfLifeView;
 
 import javafx.application.Platform;
@@ -19,12 +33,31 @@ import javafx.scene.input.MouseButton;
  *
  */
 public class GameOfLifeController {
+	private static final int CENSUS_INTERVAL = 50;
+
 	private final IGameOfLife model;
 	private final GameOfLifeView view;
+	private final GenerationHistory history = new GenerationHistory(32, 64L * 1024 * 1024);
+	private final PatternCensus census = new PatternCensus();
+	private CompletableFuture<CensusResult> pendingCensus;
+	private FrameServer frameServer;
+	private LookAheadBuffer lookAhead;
+	/**
+	 * Held while the model is stepped, read or changed without look-ahead, as the
+	 * simulation thread and the JavaFX thread both use it then.
+	 */
+	private final Object modelLock = new Object();
+	/**
+	 * Cells drawn by dragging the mouse that are not in the model yet. They are
+	 * applied together with the next change, or when the mouse is released, so a
+	 * drag costs a single edit. Only used on the JavaFX thread.
+	 */
+	private final List<DraggedCell> draggedCells = new ArrayList<>();
 	private ExecutorService executor;
 	private long delay = 100;
-	private boolean paused = false;
+	private volatile boolean paused = false;
 	private volatile boolean running;
+	private long viewedGeneration = -1; // -1 when showing the live board
 
 	public GameOfLifeController(IGameOfLife model, GameOfLifeView view) {
 		this.model = model;
@@ -52,6 +85,20 @@ public class GameOfLifeController {
 		executor.shutdownNow();
 	}
 
+	/**
+	 * Stops the simulation for good. With look-ahead, the model is left at the
+	 * generation on display rather than at one computed ahead of it.
+	 */
+	public void close() {
+		stop();
+		try {
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		setLookAhead(0);
+	}
+
 	/**
 	 * Initiate thread to run the simulation using JavaFX concurrent Task. Other
 	 * options
@@ -61,10 +108,14 @@ public class GameOfLifeController {
 		Task<Void> simulationTask = new Task<>() {
 			@Override
 			protected Void call() throws Exception {
+				updateView(liveFrame());
 				while (running) {
 					if (!paused) {
-						model.nextIteration();
-						updateView();
+						Frame frame = nextFrame(true);
+						if (frame.snapshot.getGeneration() % CENSUS_INTERVAL == 0) {
+							startCensus(frame.snapshot);
+						}
+						updateView(frame);
 					}
 					Thread.sleep(delay);
 				}
@@ -78,21 +129,181 @@ public class GameOfLifeController {
 		executor.submit(simulationTask);
 	}
 
-	private void updateView() {
-		boolean[][] cells = model.getCells();
-		Platform.runLater(() -> view.updateBoard(cells));
+	/**
+	 * Computes the next generation, or takes it from the look-ahead buffer.
+	 * 
+	 * @param wait Whether to wait for the look-ahead buffer if the generation is
+	 *             not ready yet.
+	 * @return The generation, to be released by the caller, or null if it was
+	 *         not ready and waiting was not allowed.
+	 */
+	private Frame nextFrame(boolean wait) throws InterruptedException {
+		if (lookAhead != null) {
+			BoardSnapshot snapshot = wait ? lookAhead.take() : lookAhead.poll();
+			return snapshot == null ? null : new Frame(snapshot, null);
+		}
+		synchronized (modelLock) {
+			model.nextIteration();
+			return new Frame(model.snapshot(), copyDensityPyramid());
+		}
+	}
+
+	/**
+	 * @return The live generation with its density pyramid, to be released by
+	 *         the caller.
+	 */
+	private Frame liveFrame() {
+		if (lookAhead != null) {
+			return new Frame(lookAhead.getDisplayed(), null);
+		}
+		synchronized (modelLock) {
+			return new Frame(model.snapshot(), copyDensityPyramid());
+		}
+	}
+
+	/**
+	 * Copies the density pyramid of the model, so the view gets the counts of the
+	 * generation it draws while the model moves on. Must be called while holding
+	 * the model lock, together with taking the snapshot it belongs to.
+	 */
+	private DensityPyramid copyDensityPyramid() {
+		DensityPyramid densityPyramid = model.getDensityPyramid();
+		return densityPyramid == null ? null : densityPyramid.copy();
+	}
+
+	/**
+	 * @return The live generation, to be released by the caller.
+	 */
+	private BoardSnapshot currentFrame() {
+		if (lookAhead != null) {
+			return lookAhead.getDisplayed();
+		}
+		synchronized (modelLock) {
+			return model.snapshot();
+		}
+	}
+
+	private long currentGeneration() {
+		if (lookAhead != null) {
+			return lookAhead.getDisplayedGeneration();
+		}
+		synchronized (modelLock) {
+			return model.getGeneration();
+		}
+	}
+
+	/**
+	 * Changes the model, through the look-ahead buffer if one is used as it owns
+	 * the model then, and between two generations otherwise. Cells dragged since
+	 * the last change are applied first.
+	 */
+	private void modify(Consumer<IGameOfLife> change) {
+		apply(takeDraggedCells().andThen(change));
+	}
+
+	/**
+	 * Applies the cells dragged since the last change to the model.
+	 */
+	private void applyDraggedCells() {
+		if (!draggedCells.isEmpty()) {
+			apply(takeDraggedCells());
+		}
+	}
+
+	private void apply(Consumer<IGameOfLife> edit) {
+		if (lookAhead != null) {
+			lookAhead.edit(edit);
+		} else {
+			synchronized (modelLock) {
+				edit.accept(model);
+			}
+		}
+	}
+
+	/**
+	 * @return A change that sets the cells dragged so far, which are no longer
+	 *         pending afterwards.
+	 */
+	private Consumer<IGameOfLife> takeDraggedCells() {
+		List<DraggedCell> cells = new ArrayList<>(draggedCells);
+		draggedCells.clear();
+		return model -> {
+			for (DraggedCell cell : cells) {
+				model.setCellState(cell.row, cell.col, cell.alive);
+			}
+		};
+	}
+
+	/**
+	 * Records a generation in the history and hands it to the view, which
+	 * releases it.
+	 */
+	private void updateView(Frame frame) {
+		BoardSnapshot snapshot = frame.snapshot;
+		history.record(snapshot);
+		if (frameServer != null) {
+			frameServer.publish(snapshot);
+		}
+		Platform.runLater(() -> {
+			try {
+				view.updateBoard(snapshot, frame.densityPyramid);
+			} finally {
+				snapshot.release();
+			}
+		});
+	}
+
+	/**
+	 * Counts the objects on a generation in the background, unless the previous
+	 * census is still running.
+	 */
+	private void startCensus(BoardSnapshot snapshot) {
+		if (pendingCensus != null && !pendingCensus.isDone()) {
+			return;
+		}
+		pendingCensus = census.submit(snapshot);
+		pendingCensus.thenAccept(result -> Platform.runLater(() -> view
+				.showCensus("Generation " + result.getGeneration() + ": " + result.getObjectCount() + " objects ("
+						+ result + ")")));
 	}
 
 	private void regenerateBoard() {
 		stop();
 		int newSize = view.getSizeSlider().valueProperty().intValue();
-		model.resizeGrid(newSize);
-		model.generateRandomBoard();
+		modify(model -> {
+			model.resizeGrid(newSize);
+			model.generateRandomBoard();
+		});
 		view.resizeGrid(newSize);
-		setGameOfLifeGridMouseListeners();
 		execute();
 	}
 
+	/**
+	 * Streams every generation shown on screen to the viewers of the given
+	 * server as well.
+	 */
+	public void setFrameServer(FrameServer frameServer) {
+		this.frameServer = frameServer;
+	}
+
+	/**
+	 * Computes generations ahead of the display on a background thread, so frames
+	 * are ready when they are due and pausing or resuming does not wait for a
+	 * generation. Must be called before {@link #execute()}.
+	 * 
+	 * @param depth The amount of generations to compute ahead, or 0 to compute
+	 *              every generation when it is due.
+	 */
+	public void setLookAhead(int depth) {
+		if (lookAhead != null) {
+			lookAhead.close();
+			lookAhead = null;
+		}
+		if (depth > 0) {
+			lookAhead = new LookAheadBuffer(model, depth);
+		}
+	}
+
 	/**
 	 * Pauses current iteration of Game of Life, but keeps thread going still.
 	 */
@@ -101,56 +312,152 @@ public class GameOfLifeController {
 	}
 
 	/**
-	 * Resumes iterating new generations of Game of Life.
+	 * Resumes iterating new generations of Game of Life. If an earlier generation
+	 * is on display, the simulation continues from that generation.
 	 */
 	public void resume() {
+		continueFromViewedGeneration();
+		if (paused) {
+			recordGeneration(); // Keep edits made while paused in the history
+		}
 		paused = false;
 	}
 
+	/**
+	 * Pauses the simulation and shows the previous generation kept in the history.
+	 */
+	public void stepBack() {
+		pause();
+		long current = viewedGeneration >= 0 ? viewedGeneration : currentGeneration();
+		long previous = history.getPreviousGeneration(current);
+		if (previous >= 0) {
+			showHistoryGeneration(previous);
+		}
+	}
+
+	/**
+	 * Pauses the simulation and shows the next generation. Moves forward through
+	 * the history while an earlier generation is on display, and computes a new
+	 * generation otherwise. With look-ahead, nothing happens if the next
+	 * generation is not ready yet, so the JavaFX thread never waits for it.
+	 */
+	public void stepForward() {
+		pause();
+		if (viewedGeneration < 0) {
+			try {
+				Frame frame = nextFrame(false);
+				if (frame != null) {
+					updateView(frame);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt(); // Does not happen without waiting
+			}
+			return;
+		}
+
+		long next = history.getNextGeneration(viewedGeneration);
+		if (next < 0 || next >= currentGeneration()) {
+			viewedGeneration = -1;
+			Frame frame = liveFrame();
+			view.updateBoard(frame.snapshot, frame.densityPyramid);
+			frame.snapshot.release();
+		} else {
+			showHistoryGeneration(next);
+		}
+	}
+
+	private void recordGeneration() {
+		BoardSnapshot snapshot = currentFrame();
+		history.record(snapshot);
+		snapshot.release();
+	}
+
+	private void showHistoryGeneration(long generation) {
+		BoardSnapshot snapshot = history.get(generation);
+		if (snapshot == null) {
+			return; // Evicted since the generation was looked up
+		}
+		viewedGeneration = generation;
+		view.updateBoard(snapshot, null);
+		snapshot.release();
+	}
+
+	/**
+	 * Rewinds the model to the generation on display, so edits and new generations
+	 * continue from what the user is looking at.
+	 */
+	private void continueFromViewedGeneration() {
+		if (viewedGeneration < 0) {
+			return;
+		}
+		BoardSnapshot snapshot = history.get(viewedGeneration);
+		viewedGeneration = -1;
+		if (snapshot != null) {
+			modify(model -> model.restore(snapshot));
+			snapshot.release();
+		}
+	}
+
 	private void setGameOfLifeGridMouseListeners() {
-		view.getGridPane().setOnMousePressed(event -> {
+		view.getViewport().setOnMousePressed(event -> {
 			if (event.isPrimaryButtonDown() || event.isSecondaryButtonDown()) {
 				pause();
+				continueFromViewedGeneration();
 			}
 		});
 
-		view.getGridPane().setOnMouseReleased(event -> {
+		view.getViewport().setOnMouseReleased(event -> {
 			if (!event.isPrimaryButtonDown() && !event.isSecondaryButtonDown()) {
+				applyDraggedCells();
 				resume();
 			}
 		});
 
-		view.getGridPane().setOnMouseClicked(event -> {
-			int row = (int) (event.getX() / view.getCellSize());
-			int col = (int) (event.getY() / view.getCellSize());
+		view.getViewport().setOnMouseClicked(event -> {
+			int row = view.getViewport().toBoardRow(event.getX());
+			int col = view.getViewport().toBoardColumn(event.getY());
 			if (row >= 0 && row < view.getGridSize() && col >= 0 && col < view.getGridSize()) {
 				if (event.getButton() == MouseButton.PRIMARY) {
-					model.getCells()[row][col] = true;
+					modify(model -> model.setCellState(row, col, true));
 					view.updateCell(row, col, true);
 				} else if (event.getButton() == MouseButton.SECONDARY) {
-					model.getCells()[row][col] = false;
+					modify(model -> model.setCellState(row, col, false));
 					view.updateCell(row, col, false);
 				}
 			}
 		});
 
-		view.getGridPane().setOnMouseDragged(event -> {
-			int row = (int) (event.getX() / view.getCellSize());
-			int col = (int) (event.getY() / view.getCellSize());
+		view.getViewport().setOnMouseDragged(event -> {
+			int row = view.getViewport().toBoardRow(event.getX());
+			int col = view.getViewport().toBoardColumn(event.getY());
 			if (row >= 0 && row < view.getGridSize() && col >= 0 && col < view.getGridSize()) {
 				if (event.getButton() == MouseButton.PRIMARY) {
-					model.getCells()[row][col] = true;
+					draggedCells.add(new DraggedCell(row, col, true));
 					view.updateCell(row, col, true);
 				} else if (event.getButton() == MouseButton.SECONDARY) {
-					model.getCells()[row][col] = false;
+					draggedCells.add(new DraggedCell(row, col, false));
 					view.updateCell(row, col, false);
 				}
 			}
 		});
 	}
 
+	/**
+	 * Applies the selected rule together with the neighbour counting strategy it
+	 * needs for the current wrap around setting.
+	 */
+	private void applyRule() {
+		Rule rule = view.getRuleBox().getValue();
+		boolean wrapAround = view.getWrapAroundBox().isSelected();
+		modify(model -> {
+			model.setRule(rule);
+			model.setNeighborCountingStrategy(rule.createNeighborCountingStrategy(wrapAround));
+		});
+	}
+
 	private void setGameOfLifeControllerListeners() {
 		view.getStartButton().setOnAction(event -> {
+			resume();
 			execute();
 		});
 
@@ -158,6 +465,14 @@ public class GameOfLifeController {
 			stop();
 		});
 
+		view.getBackButton().setOnAction(event -> {
+			stepBack();
+		});
+
+		view.getForwardButton().setOnAction(event -> {
+			stepForward();
+		});
+
 		view.getSizeSlider().valueProperty().addListener((observable, oldValue, newValue) -> {
 			if (!view.getSizeSlider().isValueChanging()) {
 				if (newValue != oldValue) {
@@ -175,7 +490,7 @@ public class GameOfLifeController {
 		});
 
 		view.getClearButton().setOnAction(event -> {
-			model.clearBoard();
+			modify(IGameOfLife::clearBoard);
 		});
 
 		view.getRegenButton().setOnAction(event -> {
@@ -183,11 +498,46 @@ public class GameOfLifeController {
 		});
 
 		view.getWrapAroundBox().setOnAction(event -> {
-			if (view.getWrapAroundBox().isSelected()) {
-				model.setNeighborCountingStrategy(new CountNeighborsWithWrapAroundStrategy());
-			} else {
-				model.setNeighborCountingStrategy(new CountNeighborsWithBordersStrategy());
-			}
+			applyRule();
+		});
+
+		view.getRuleBox().getItems().addAll(new ConwayRule(),
+				LargerThanLifeRule.parse(LargerThanLifeRule.BOSCO, "Bosco's Rule"),
+				LargerThanLifeRule.parse(LargerThanLifeRule.MAJORITY, "Majority"),
+				GenerationsRule.parse(GenerationsRule.BRIANS_BRAIN, "Brian's Brain"),
+				GenerationsRule.parse(GenerationsRule.STAR_WARS, "Star Wars"));
+		view.getRuleBox().getSelectionModel().selectFirst();
+		view.getRuleBox().setOnAction(event -> {
+			applyRule();
 		});
 	}
+
+	/**
+	 * A generation to show, with a copy of the density pyramid of the model at
+	 * that generation, or null with look-ahead, as the model is ahead of the
+	 * display then.
+	 */
+	private static final class Frame {
+		final BoardSnapshot snapshot;
+		final DensityPyramid densityPyramid;
+
+		Frame(BoardSnapshot snapshot, DensityPyramid densityPyramid) {
+			this.snapshot = snapshot;
+			this.densityPyramid = densityPyramid;
+		}
+	}
+
+	/**
+	 * A cell drawn by dragging the mouse, see {@link #draggedCells}.
+	 */
+	private static final class DraggedCell {
+		final int row, col;
+		final boolean alive;
+
+		DraggedCell(int row, int col, boolean alive) {
+			this.row = row;
+			this.col = col;
+			this.alive = alive;
+		}
+	}
 }
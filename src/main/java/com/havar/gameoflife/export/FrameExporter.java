@@ -0,0 +1,192 @@
+package com.havar.gameoflife.export;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.AdaptiveGameOfLife;
+import com.havar.gameoflife.model.IGameOfLife;
+import com.havar.gameoflife.model.PackedBoard;
+
+/**
+ * Exports generations to a {@link FrameSink} on a background thread.
+ *
+ * Submitting a generation only retains its snapshot and queues it. The export
+ * thread packs each snapshot into a frame that is reused for every generation,
+ * so encoding does not allocate per frame and does not hold up the thread that
+ * computes generations. When the queue is full, submitting waits for the
+ * export to catch up, as an export must not lose generations.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class FrameExporter implements AutoCloseable {
+	private static final BoardSnapshot END = new BoardSnapshot(new boolean[0][0], -1);
+
+	private final FrameSink sink;
+	private final BlockingQueue<BoardSnapshot> queue;
+	private final Thread thread;
+	private volatile IOException failure;
+	private volatile long framesWritten;
+	private boolean closed;
+
+	/**
+	 * Starts the export thread.
+	 *
+	 * @param sink          Receives the frames, closed with the exporter.
+	 * @param queueCapacity The amount of generations that may wait for the export.
+	 */
+	public FrameExporter(FrameSink sink, int queueCapacity) {
+		this.sink = sink;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.thread = new Thread(this::run, "frame-exporter");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues a generation for export. The caller keeps its own reference to the
+	 * snapshot.
+	 *
+	 * @throws IOException If an earlier frame could not be written.
+	 */
+	public void submit(BoardSnapshot snapshot) throws IOException, InterruptedException {
+		if (closed) {
+			throw new IllegalStateException("The exporter has been closed.");
+		}
+		checkFailure();
+		snapshot.retain();
+		try {
+			queue.put(snapshot);
+		} catch (InterruptedException e) {
+			snapshot.release();
+			throw e;
+		}
+	}
+
+	public long getFramesWritten() {
+		return framesWritten;
+	}
+
+	/**
+	 * Writes all queued generations and closes the sink.
+	 *
+	 * @throws IOException If a frame could not be written, or an
+	 *                     {@link InterruptedIOException} if the calling thread
+	 *                     was interrupted while waiting for the export, in which
+	 *                     case its interrupt flag is set again.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			queue.put(END);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			InterruptedIOException interrupted = new InterruptedIOException("Interrupted while finishing the export");
+			interrupted.initCause(e);
+			throw interrupted;
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Runs a model for a number of generations and exports every generation,
+	 * including the current one.
+	 */
+	public static void export(IGameOfLife model, int generations, FrameSink sink, int queueCapacity)
+			throws IOException, InterruptedException {
+		try (FrameExporter exporter = new FrameExporter(sink, queueCapacity)) {
+			for (int i = 0; i <= generations; i++) {
+				if (i > 0) {
+					model.nextIteration();
+				}
+				BoardSnapshot snapshot = model.snapshot();
+				try {
+					exporter.submit(snapshot);
+				} finally {
+					snapshot.release();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Exports a random board without the user interface.
+	 *
+	 * Usage: {@code FrameExporter <file.gif|file.raw> <size> <generations>}
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length != 3) {
+			System.out.println("Usage: FrameExporter <file.gif|file.raw> <size> <generations>");
+			return;
+		}
+		int size = Integer.parseInt(args[1]);
+		int generations = Integer.parseInt(args[2]);
+		AdaptiveGameOfLife model = new AdaptiveGameOfLife(size, size);
+		model.generateRandomBoard();
+
+		OutputStream out = new FileOutputStream(args[0]);
+		FrameSink sink = args[0].endsWith(".raw") ? new RawFrameSink(out, size, size)
+				: new GifFrameSink(out, size, size, 5, 0xffffff, 0x000000);
+		long start = System.nanoTime();
+		export(model, generations, sink, 8);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Exported %d generations in %.1f s (%.0f generations/s)%n", generations + 1, seconds,
+				(generations + 1) / seconds);
+	}
+
+	private void run() {
+		PackedBoard frame = null;
+		try {
+			while (true) {
+				BoardSnapshot snapshot = queue.take();
+				if (snapshot == END) {
+					break;
+				}
+				try {
+					if (failure != null) {
+						continue; // Drain the queue so no submitter stays blocked
+					}
+					if (frame == null || frame.getRows() != snapshot.getRows()
+							|| frame.getColumns() != snapshot.getColumns()) {
+						frame = new PackedBoard(snapshot.getRows(), snapshot.getColumns());
+					}
+					frame.pack(snapshot);
+					sink.writeFrame(frame, snapshot.getGeneration());
+					framesWritten++;
+				} catch (IOException e) {
+					failure = e;
+				} catch (RuntimeException e) {
+					failure = new IOException(e);
+				} finally {
+					snapshot.release();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			try {
+				sink.close();
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+	}
+
+	private void checkFailure() throws IOException {
+		if (failure != null) {
+			throw new IOException("Export failed", failure);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.havar.gameoflife.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.havar.gameoflife.model.PackedBoard;
+
+/**
+ * Destination for the generations of an export, such as an animated GIF.
+ *
+ * @author Havar Ameen
+ *
+ */
+public interface FrameSink extends Closeable {
+
+	/**
+	 * Writes a generation. The frame is reused by the caller afterwards, so a sink
+	 * that needs it later must copy it.
+	 *
+	 * @param frame      The cells of the generation, one bit per cell.
+	 * @param generation The generation number.
+	 */
+	void writeFrame(PackedBoard frame, long generation) throws IOException;
+}
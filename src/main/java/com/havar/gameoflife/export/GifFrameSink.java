@@ -0,0 +1,236 @@
+package com.havar.gameoflife.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.havar.gameoflife.model.PackedBoard;
+
+/**
+ * Writes generations as an animated GIF with a two colour palette.
+ *
+ * Only the first frame covers the whole board. Every later frame covers the
+ * smallest rectangle that contains all cells that changed since the frame
+ * before, and is drawn on top of it, so settled parts of the board cost nothing.
+ * As on screen, the first index of a cell is the horizontal position.
+ *
+ * The pixels are compressed with the LZW variant of the GIF format. With only
+ * two colours every dictionary entry has two possible children, so the
+ * dictionary is a plain array instead of a hash table.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class GifFrameSink implements FrameSink {
+	private static final int MIN_CODE_SIZE = 2; // The smallest the format allows
+	private static final int CLEAR_CODE = 1 << MIN_CODE_SIZE;
+	private static final int END_CODE = CLEAR_CODE + 1;
+	private static final int MAX_CODES = 1 << 12;
+
+	private final OutputStream out;
+	private final int rows, columns;
+	private final int delay;
+	private PackedBoard previous;
+	private byte[] pixels = new byte[0];
+
+	private final int[] children = new int[MAX_CODES * 2];
+	private final byte[] block = new byte[255];
+	private int blockSize;
+	private int bitBuffer, bitCount;
+
+	/**
+	 * Writes the header of the GIF.
+	 *
+	 * @param out      The stream to write to, closed by {@link #close()}.
+	 * @param rows     The amount of rows of the board, the width of the image.
+	 * @param columns  The amount of columns of the board, the height of the
+	 *                 image.
+	 * @param delay    The time each frame is shown, in hundredths of a second.
+	 * @param aliveRgb The colour of live cells, as 0xRRGGBB.
+	 * @param deadRgb  The colour of dead cells, as 0xRRGGBB.
+	 */
+	public GifFrameSink(OutputStream out, int rows, int columns, int delay, int aliveRgb, int deadRgb)
+			throws IOException {
+		if (rows <= 0 || columns <= 0 || rows > 0xffff || columns > 0xffff) {
+			throw new IllegalArgumentException("GIF images must be between 1 and 65535 pixels wide and high");
+		}
+		this.out = new BufferedOutputStream(out, 1 << 16);
+		this.rows = rows;
+		this.columns = columns;
+		this.delay = delay;
+
+		this.out.write(new byte[] { 'G', 'I', 'F', '8', '9', 'a' });
+		writeShort(rows);
+		writeShort(columns);
+		this.out.write(0x80); // Global colour table of two entries
+		this.out.write(0); // Background colour
+		this.out.write(0); // No aspect ratio
+		writeRgb(deadRgb);
+		writeRgb(aliveRgb);
+
+		// Loop forever
+		this.out.write(new byte[] { 0x21, (byte) 0xff, 11, 'N', 'E', 'T', 'S', 'C', 'A', 'P', 'E', '2', '.', '0', 3,
+				1, 0, 0, 0 });
+	}
+
+	@Override
+	public void writeFrame(PackedBoard frame, long generation) throws IOException {
+		if (frame.getRows() != rows || frame.getColumns() != columns) {
+			throw new IllegalArgumentException("The frame must be " + rows + "x" + columns);
+		}
+		int left = 0, top = 0, right = rows - 1, bottom = columns - 1;
+		if (previous == null) {
+			previous = new PackedBoard(rows, columns);
+		} else {
+			int[] bounds = changedBounds(previous, frame);
+			if (bounds == null) {
+				// Nothing changed, but a frame needs at least one pixel.
+				right = 0;
+				bottom = 0;
+			} else {
+				left = bounds[0];
+				top = bounds[1];
+				right = bounds[2];
+				bottom = bounds[3];
+			}
+		}
+
+		int width = right - left + 1;
+		int height = bottom - top + 1;
+		if (pixels.length < width * height) {
+			pixels = new byte[width * height];
+		}
+		long[] words = frame.getWords();
+		int wordsPerRow = frame.getWordsPerRow();
+		for (int x = left; x <= right; x++) {
+			int offset = x * wordsPerRow;
+			int index = x - left;
+			for (int y = top; y <= bottom; y++) {
+				pixels[index] = (byte) (words[offset + (y >>> 6)] >>> y & 1L);
+				index += width;
+			}
+		}
+
+		out.write(new byte[] { 0x21, (byte) 0xf9, 4, 1 << 2 }); // Leave the frame in place for the next one
+		writeShort(delay);
+		out.write(0); // No transparent colour
+		out.write(0);
+
+		out.write(0x2c);
+		writeShort(left);
+		writeShort(top);
+		writeShort(width);
+		writeShort(height);
+		out.write(0); // No local colour table, not interlaced
+		compress(pixels, width * height);
+
+		System.arraycopy(frame.getWords(), 0, previous.getWords(), 0, frame.getWords().length);
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.write(0x3b);
+		out.close();
+	}
+
+	/**
+	 * @return The left, top, right and bottom cell that changed, or null if none
+	 *         did.
+	 */
+	private static int[] changedBounds(PackedBoard before, PackedBoard after) {
+		long[] a = before.getWords();
+		long[] b = after.getWords();
+		int wordsPerRow = after.getWordsPerRow();
+		int left = Integer.MAX_VALUE, right = -1, top = Integer.MAX_VALUE, bottom = -1;
+		for (int x = 0; x < after.getRows(); x++) {
+			int offset = x * wordsPerRow;
+			for (int w = 0; w < wordsPerRow; w++) {
+				long diff = a[offset + w] ^ b[offset + w];
+				if (diff != 0) {
+					left = Math.min(left, x);
+					right = x;
+					top = Math.min(top, (w << 6) + Long.numberOfTrailingZeros(diff));
+					bottom = Math.max(bottom, (w << 6) + 63 - Long.numberOfLeadingZeros(diff));
+				}
+			}
+		}
+		return right < 0 ? null : new int[] { left, top, right, bottom };
+	}
+
+	private void compress(byte[] data, int length) throws IOException {
+		out.write(MIN_CODE_SIZE);
+		int codeSize = MIN_CODE_SIZE + 1;
+		int nextCode = END_CODE + 1;
+		Arrays.fill(children, -1);
+		writeCode(CLEAR_CODE, codeSize);
+
+		int prefix = data[0];
+		for (int i = 1; i < length; i++) {
+			int pixel = data[i];
+			int child = children[prefix * 2 + pixel];
+			if (child >= 0) {
+				prefix = child;
+				continue;
+			}
+			writeCode(prefix, codeSize);
+			if (nextCode < MAX_CODES) {
+				children[prefix * 2 + pixel] = nextCode++;
+				if (nextCode > 1 << codeSize && codeSize < 12) {
+					codeSize++;
+				}
+			} else {
+				writeCode(CLEAR_CODE, codeSize);
+				Arrays.fill(children, -1);
+				codeSize = MIN_CODE_SIZE + 1;
+				nextCode = END_CODE + 1;
+			}
+			prefix = pixel;
+		}
+		writeCode(prefix, codeSize);
+		writeCode(END_CODE, codeSize);
+		if (bitCount > 0) {
+			writeByte(bitBuffer & 0xff);
+			bitBuffer = 0;
+			bitCount = 0;
+		}
+		flushBlock();
+		out.write(0); // Block terminator
+	}
+
+	private void writeCode(int code, int codeSize) throws IOException {
+		bitBuffer |= code << bitCount;
+		bitCount += codeSize;
+		while (bitCount >= 8) {
+			writeByte(bitBuffer & 0xff);
+			bitBuffer >>>= 8;
+			bitCount -= 8;
+		}
+	}
+
+	private void writeByte(int value) throws IOException {
+		block[blockSize++] = (byte) value;
+		if (blockSize == block.length) {
+			flushBlock();
+		}
+	}
+
+	private void flushBlock() throws IOException {
+		if (blockSize > 0) {
+			out.write(blockSize);
+			out.write(block, 0, blockSize);
+			blockSize = 0;
+		}
+	}
+
+	private void writeShort(int value) throws IOException {
+		out.write(value & 0xff);
+		out.write(value >>> 8 & 0xff);
+	}
+
+	private void writeRgb(int rgb) throws IOException {
+		out.write(rgb >>> 16 & 0xff);
+		out.write(rgb >>> 8 & 0xff);
+		out.write(rgb & 0xff);
+	}
+}
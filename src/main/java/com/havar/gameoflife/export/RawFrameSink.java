@@ -0,0 +1,55 @@
+package com.havar.gameoflife.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import com.havar.gameoflife.model.PackedBoard;
+
+/**
+ * Writes generations as a raw sequence of bit-packed frames, for tools that
+ * want to process a run frame by frame.
+ *
+ * The file starts with the magic number {@link #MAGIC} and the amount of rows,
+ * columns and words per row as ints. Every frame is the generation as a long
+ * followed by the words of a {@link PackedBoard}. All numbers are big-endian.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class RawFrameSink implements FrameSink {
+	public static final int MAGIC = 0x474f4c46; // "GOLF"
+
+	private final OutputStream out;
+	private final ByteBuffer buffer;
+	private final int rows, columns;
+
+	public RawFrameSink(OutputStream out, int rows, int columns) throws IOException {
+		PackedBoard layout = new PackedBoard(rows, columns);
+		this.out = new BufferedOutputStream(out, 1 << 16);
+		this.rows = rows;
+		this.columns = columns;
+		this.buffer = ByteBuffer.allocate(Long.BYTES * (1 + layout.getWords().length));
+
+		ByteBuffer header = ByteBuffer.allocate(4 * Integer.BYTES);
+		header.putInt(MAGIC).putInt(rows).putInt(columns).putInt(layout.getWordsPerRow());
+		this.out.write(header.array());
+	}
+
+	@Override
+	public void writeFrame(PackedBoard frame, long generation) throws IOException {
+		if (frame.getRows() != rows || frame.getColumns() != columns) {
+			throw new IllegalArgumentException("The frame must be " + rows + "x" + columns);
+		}
+		buffer.clear();
+		buffer.putLong(generation);
+		buffer.asLongBuffer().put(frame.getWords());
+		out.write(buffer.array());
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
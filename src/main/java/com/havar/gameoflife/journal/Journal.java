@@ -0,0 +1,262 @@
+package com.havar.gameoflife.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.PackedBoard;
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithBordersStrategy;
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithWrapAroundStrategy;
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.countstratgegies.RangeNeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.ConwayRule;
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import com.havar.gameoflife.model.rules.LargerThanLifeRule;
+import com.havar.gameoflife.model.rules.Rule;
+
+/**
+ * Append-only binary log of everything that changes a board other than
+ * stepping it, so a run can be replayed exactly by {@link JournalReplayer}.
+ *
+ * The file starts with {@link #MAGIC} and {@link #VERSION} as ints. Every
+ * record is a type byte, the generation of the board when the change was made
+ * as a long, and a payload depending on the type. Boards are stored as the
+ * words of a {@link PackedBoard}, followed by the cell states if the board has
+ * more than two. All numbers are big-endian.
+ *
+ * Records are written into a memory-mapped region of the file that is extended
+ * a chunk at a time, so a record costs no system call. The file is cut to its
+ * real length when the journal is closed.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class Journal implements AutoCloseable {
+	public static final int MAGIC = 0x474f4c4a; // "GOLJ"
+	public static final int VERSION = 1;
+
+	static final byte RESTORE = 1; // Generation, rows, columns, words and states
+	static final byte SET_CELLS = 2; // Rows, columns and words
+	static final byte SET_CELL = 3; // Row, column and a byte that is 1 if alive
+	static final byte CLEAR = 4;
+	static final byte RESIZE = 5; // Size
+	static final byte RANDOM = 6; // Seed and density
+	static final byte RULE = 7; // Rule kind and parameters, see writeRule
+	static final byte STRATEGY = 8; // Strategy kind and parameters, see writeStrategy
+	static final byte END = 9;
+
+	static final byte CONWAY = 0, GENERATIONS = 1, LARGER_THAN_LIFE = 2;
+	static final byte BORDERS = 0, WRAP_AROUND = 1, RANGE = 2;
+
+	private static final int CHUNK_SIZE = 1 << 20;
+	private static final int HEADER_SIZE = Byte.BYTES + Long.BYTES;
+
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long mappedAt; // The position in the file where the buffer starts
+	private long length; // Set when closed
+	private long records;
+	private boolean closed;
+
+	/**
+	 * Creates the journal, replacing an existing file.
+	 */
+	public Journal(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		map(0, CHUNK_SIZE);
+		buffer.putInt(MAGIC).putInt(VERSION);
+	}
+
+	/**
+	 * Records that the board was replaced by a generation, which may be an
+	 * earlier or later one.
+	 *
+	 * @param generation The generation before the board was replaced.
+	 */
+	public synchronized void writeRestore(long generation, BoardSnapshot snapshot) {
+		PackedBoard board = PackedBoard.of(snapshot);
+		int stateBytes = snapshot.hasStates() ? snapshot.getRows() * snapshot.getColumns() : 0;
+		begin(RESTORE, generation, Long.BYTES + boardSize(board) + Integer.BYTES + stateBytes);
+		buffer.putLong(snapshot.getGeneration());
+		putBoard(board);
+		buffer.putInt(snapshot.hasStates() ? snapshot.getStateCount() : 2);
+		if (snapshot.hasStates()) {
+			for (int i = 0; i < snapshot.getRows(); i++) {
+				for (int j = 0; j < snapshot.getColumns(); j++) {
+					buffer.put((byte) snapshot.getState(i, j));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records that the cells were replaced without changing the generation.
+	 */
+	public synchronized void writeSetCells(long generation, boolean[][] cells) {
+		PackedBoard board = PackedBoard.of(cells);
+		begin(SET_CELLS, generation, boardSize(board));
+		putBoard(board);
+	}
+
+	public synchronized void writeSetCell(long generation, int row, int col, boolean alive) {
+		begin(SET_CELL, generation, 2 * Integer.BYTES + Byte.BYTES);
+		buffer.putInt(row).putInt(col).put((byte) (alive ? 1 : 0));
+	}
+
+	public synchronized void writeClear(long generation) {
+		begin(CLEAR, generation, 0);
+	}
+
+	public synchronized void writeResize(long generation, int size) {
+		begin(RESIZE, generation, Integer.BYTES);
+		buffer.putInt(size);
+	}
+
+	public synchronized void writeRandom(long generation, long seed, double density) {
+		begin(RANDOM, generation, Long.BYTES + Double.BYTES);
+		buffer.putLong(seed).putDouble(density);
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the rule is of a kind the journal does
+	 *                                  not know.
+	 */
+	public synchronized void writeRule(long generation, Rule rule) {
+		if (rule instanceof ConwayRule) {
+			begin(RULE, generation, Byte.BYTES);
+			buffer.put(CONWAY);
+			return;
+		}
+		byte[] name = String.valueOf(rule).getBytes(StandardCharsets.UTF_8);
+		if (rule instanceof GenerationsRule) {
+			GenerationsRule generations = (GenerationsRule) rule;
+			begin(RULE, generation, Byte.BYTES + 3 * Integer.BYTES + Integer.BYTES + name.length);
+			buffer.put(GENERATIONS).putInt(generations.getBirthMask()).putInt(generations.getSurvivalMask())
+					.putInt(generations.getStateCount());
+		} else if (rule instanceof LargerThanLifeRule) {
+			LargerThanLifeRule largerThanLife = (LargerThanLifeRule) rule;
+			begin(RULE, generation, 3 * Byte.BYTES + 5 * Integer.BYTES + Integer.BYTES + name.length);
+			buffer.put(LARGER_THAN_LIFE).putInt(largerThanLife.getRange())
+					.put((byte) largerThanLife.getNeighborhood().ordinal())
+					.put((byte) (largerThanLife.isIncludeCenter() ? 1 : 0)).putInt(largerThanLife.getSurvivalMin())
+					.putInt(largerThanLife.getSurvivalMax()).putInt(largerThanLife.getBirthMin())
+					.putInt(largerThanLife.getBirthMax());
+		} else {
+			throw new IllegalArgumentException("Rules of type " + rule.getClass().getSimpleName()
+					+ " cannot be journaled");
+		}
+		buffer.putInt(name.length).put(name);
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the strategy is of a kind the journal
+	 *                                  does not know.
+	 */
+	public synchronized void writeStrategy(long generation, NeighborCountingStrategy strategy) {
+		if (strategy instanceof RangeNeighborCountingStrategy) {
+			RangeNeighborCountingStrategy range = (RangeNeighborCountingStrategy) strategy;
+			begin(STRATEGY, generation, 3 * Byte.BYTES + Integer.BYTES);
+			buffer.put(RANGE).put((byte) range.getNeighborhood().ordinal()).putInt(range.getRange())
+					.put((byte) (range.isWrapAround() ? 1 : 0));
+		} else if (strategy instanceof CountNeighborsWithWrapAroundStrategy) {
+			begin(STRATEGY, generation, Byte.BYTES);
+			buffer.put(WRAP_AROUND);
+		} else if (strategy instanceof CountNeighborsWithBordersStrategy) {
+			begin(STRATEGY, generation, Byte.BYTES);
+			buffer.put(BORDERS);
+		} else {
+			throw new IllegalArgumentException("Strategies of type " + strategy.getClass().getSimpleName()
+					+ " cannot be journaled");
+		}
+	}
+
+	/**
+	 * Makes the records written so far durable, for example after an important
+	 * edit. Closing the journal does this as well.
+	 */
+	public synchronized void flush() {
+		buffer.force();
+	}
+
+	public synchronized long getRecords() {
+		return records;
+	}
+
+	/**
+	 * @return The amount of bytes written, including the header.
+	 */
+	public synchronized long getLength() {
+		return closed ? length : mappedAt + buffer.position();
+	}
+
+	/**
+	 * Marks the end of the run and closes the file.
+	 *
+	 * @param generation The generation the run ended at, which a replay runs to.
+	 */
+	public synchronized void close(long generation) throws IOException {
+		if (closed) {
+			return;
+		}
+		begin(END, generation, 0);
+		close();
+	}
+
+	/**
+	 * Closes the file without marking the end of the run, a replay then stops at
+	 * the last change.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		length = getLength();
+		closed = true;
+		buffer.force();
+		buffer = null;
+		channel.truncate(length);
+		channel.close();
+	}
+
+	private void begin(byte type, long generation, int payloadSize) {
+		if (closed) {
+			throw new IllegalStateException("The journal has been closed.");
+		}
+		int size = HEADER_SIZE + payloadSize;
+		if (buffer.remaining() < size) {
+			try {
+				map(mappedAt + buffer.position(), Math.max(CHUNK_SIZE, size));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		buffer.put(type).putLong(generation);
+		records++;
+	}
+
+	private void map(long position, int size) throws IOException {
+		if (buffer != null) {
+			buffer.force();
+		}
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+		mappedAt = position;
+	}
+
+	private static int boardSize(PackedBoard board) {
+		return 2 * Integer.BYTES + board.getWords().length * Long.BYTES;
+	}
+
+	private void putBoard(PackedBoard board) {
+		buffer.putInt(board.getRows()).putInt(board.getColumns());
+		for (long word : board.getWords()) {
+			buffer.putLong(word);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.havar.gameoflife.journal;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.havar.gameoflife.model.AdaptiveGameOfLife;
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.IGameOfLife;
+import com.havar.gameoflife.model.PackedBoard;
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithBordersStrategy;
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithWrapAroundStrategy;
+import com.havar.gameoflife.model.countstratgegies.Neighborhood;
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.countstratgegies.RangeNeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.ConwayRule;
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import com.havar.gameoflife.model.rules.LargerThanLifeRule;
+import com.havar.gameoflife.model.rules.Rule;
+
+/**
+ * Replays a {@link Journal} on a model without the user interface. The model
+ * is stepped as fast as it goes up to the generation of each record, and the
+ * change of the record is applied there, so the model ends up exactly where
+ * the journaled run ended.
+ *
+ * The model should be new, with its default rule and neighbour counting
+ * strategy, as the journaled model was when the journal started.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class JournalReplayer {
+	private final Path path;
+	private long records;
+	private long generationsStepped;
+	private long elapsedNanos;
+
+	public JournalReplayer(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Replays the journal up to its end record, or up to the last record if the
+	 * run did not end properly.
+	 *
+	 * @throws IOException If the file is not a journal or is damaged.
+	 */
+	public void replay(IGameOfLife model) throws IOException {
+		long start = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Journals over 2 GB are not supported");
+			}
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != Journal.MAGIC) {
+				throw new IOException(path + " is not a journal");
+			}
+			int version = buffer.getInt();
+			if (version != Journal.VERSION) {
+				throw new IOException("Unsupported journal version " + version);
+			}
+
+			while (buffer.hasRemaining()) {
+				byte type = buffer.get();
+				if (type == 0) {
+					break; // The unused end of a journal that was not closed
+				}
+				long generation = buffer.getLong();
+				stepTo(model, generation);
+				records++;
+				if (type == Journal.END) {
+					break;
+				}
+				apply(type, buffer, model);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException(path + " ends in the middle of a record", e);
+		} finally {
+			elapsedNanos += System.nanoTime() - start;
+		}
+	}
+
+	public long getRecords() {
+		return records;
+	}
+
+	public long getGenerationsStepped() {
+		return generationsStepped;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Replays a journal headlessly and prints how fast it went.
+	 *
+	 * Usage: {@code JournalReplayer <journal>}
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.out.println("Usage: JournalReplayer <journal>");
+			return;
+		}
+		AdaptiveGameOfLife model = new AdaptiveGameOfLife(100, 100);
+		JournalReplayer replayer = new JournalReplayer(Path.of(args[0]));
+		replayer.replay(model);
+
+		BoardSnapshot snapshot = model.snapshot();
+		double seconds = replayer.getElapsedNanos() / 1e9;
+		System.out.printf("Replayed %d records and %d generations in %.1f s (%.0f generations/s)%n",
+				replayer.getRecords(), replayer.getGenerationsStepped(), seconds,
+				replayer.getGenerationsStepped() / seconds);
+		System.out.printf("Ended at generation %d with %d live cells on %s%n", snapshot.getGeneration(),
+				snapshot.getPopulation(), model.getEngineType());
+		snapshot.release();
+	}
+
+	private void stepTo(IGameOfLife model, long generation) throws IOException {
+		if (model.getGeneration() > generation) {
+			throw new IOException("Record for generation " + generation + " follows generation "
+					+ model.getGeneration());
+		}
+		while (model.getGeneration() < generation) {
+			model.nextIteration();
+			generationsStepped++;
+		}
+	}
+
+	private static void apply(byte type, ByteBuffer buffer, IGameOfLife model) throws IOException {
+		switch (type) {
+		case Journal.RESTORE:
+			long generation = buffer.getLong();
+			boolean[][] cells = readBoard(buffer);
+			int stateCount = buffer.getInt();
+			byte[][] states = null;
+			if (stateCount > 2) {
+				states = new byte[cells.length][cells[0].length];
+				for (byte[] row : states) {
+					buffer.get(row);
+				}
+			}
+			model.restore(new BoardSnapshot(cells, states, stateCount, generation));
+			break;
+		case Journal.SET_CELLS:
+			model.setCells(readBoard(buffer));
+			break;
+		case Journal.SET_CELL:
+			model.setCellState(buffer.getInt(), buffer.getInt(), buffer.get() != 0);
+			break;
+		case Journal.CLEAR:
+			model.clearBoard();
+			break;
+		case Journal.RESIZE:
+			model.resizeGrid(buffer.getInt());
+			break;
+		case Journal.RANDOM:
+			model.generateRandomBoard(buffer.getLong(), buffer.getDouble());
+			break;
+		case Journal.RULE:
+			model.setRule(readRule(buffer));
+			break;
+		case Journal.STRATEGY:
+			model.setNeighborCountingStrategy(readStrategy(buffer));
+			break;
+		default:
+			throw new IOException("Unknown record type " + type);
+		}
+	}
+
+	private static boolean[][] readBoard(ByteBuffer buffer) {
+		PackedBoard board = new PackedBoard(buffer.getInt(), buffer.getInt());
+		buffer.asLongBuffer().get(board.getWords());
+		buffer.position(buffer.position() + board.getWords().length * Long.BYTES);
+		return board.toCells();
+	}
+
+	private static Rule readRule(ByteBuffer buffer) throws IOException {
+		byte kind = buffer.get();
+		switch (kind) {
+		case Journal.CONWAY:
+			return new ConwayRule();
+		case Journal.GENERATIONS:
+			int birthMask = buffer.getInt();
+			int survivalMask = buffer.getInt();
+			int stateCount = buffer.getInt();
+			return new GenerationsRule(birthMask, survivalMask, stateCount, readString(buffer));
+		case Journal.LARGER_THAN_LIFE:
+			int range = buffer.getInt();
+			Neighborhood neighborhood = Neighborhood.values()[buffer.get()];
+			boolean includeCenter = buffer.get() != 0;
+			int survivalMin = buffer.getInt();
+			int survivalMax = buffer.getInt();
+			int birthMin = buffer.getInt();
+			int birthMax = buffer.getInt();
+			return new LargerThanLifeRule(range, neighborhood, includeCenter, survivalMin, survivalMax, birthMin,
+					birthMax, readString(buffer));
+		default:
+			throw new IOException("Unknown rule kind " + kind);
+		}
+	}
+
+	private static NeighborCountingStrategy readStrategy(ByteBuffer buffer) throws IOException {
+		byte kind = buffer.get();
+		switch (kind) {
+		case Journal.BORDERS:
+			return new CountNeighborsWithBordersStrategy();
+		case Journal.WRAP_AROUND:
+			return new CountNeighborsWithWrapAroundStrategy();
+		case Journal.RANGE:
+			Neighborhood neighborhood = Neighborhood.values()[buffer.get()];
+			int range = buffer.getInt();
+			return new RangeNeighborCountingStrategy(neighborhood, range, buffer.get() != 0);
+		default:
+			throw new IOException("Unknown neighbour counting strategy kind " + kind);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
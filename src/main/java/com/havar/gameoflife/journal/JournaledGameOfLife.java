@@ -0,0 +1,156 @@
+package com.havar.gameoflife.journal;
+
+import java.io.IOException;
+import java.util.Random;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.DensityPyramid;
+import com.havar.gameoflife.model.IGameOfLife;
+import com.havar.gameoflife.model.RandomBoardGenerator;
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.Rule;
+
+/**
+ * Records every change made to a model in a {@link Journal}, stamped with the
+ * generation it was made at. Stepping is not recorded, as a replay computes the
+ * same generations.
+ *
+ * The board the model starts with is recorded when this is created. The rule
+ * and neighbour counting strategy are only recorded when they change, so the
+ * model must still have its default ones at that point. Random boards without
+ * a seed get one from this class, so they can be generated again.
+ *
+ * Stepping and every change are done while holding the lock of this object,
+ * and the generation of a change is read under the same lock, so a change
+ * made on another thread than the one stepping is recorded at the generation
+ * it was actually applied to.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class JournaledGameOfLife implements IGameOfLife, AutoCloseable {
+	private final IGameOfLife model;
+	private final Journal journal;
+	private final Random random = new Random();
+
+	public JournaledGameOfLife(IGameOfLife model, Journal journal) {
+		this.model = model;
+		this.journal = journal;
+		BoardSnapshot snapshot = model.snapshot();
+		try {
+			journal.writeRestore(model.getGeneration(), snapshot);
+		} finally {
+			snapshot.release();
+		}
+	}
+
+	@Override
+	public synchronized boolean[][] nextIteration() {
+		return model.nextIteration();
+	}
+
+	@Override
+	public synchronized int countNeighbors(int rowPosition, int colPosition) {
+		return model.countNeighbors(rowPosition, colPosition);
+	}
+
+	@Override
+	public synchronized void resizeGrid(int size) {
+		long generation = model.getGeneration();
+		model.resizeGrid(size);
+		journal.writeResize(generation, size);
+	}
+
+	@Override
+	public synchronized boolean[][] getCells() {
+		return model.getCells();
+	}
+
+	@Override
+	public synchronized BoardSnapshot snapshot() {
+		return model.snapshot();
+	}
+
+	@Override
+	public synchronized long getGeneration() {
+		return model.getGeneration();
+	}
+
+	@Override
+	public synchronized void restore(BoardSnapshot snapshot) {
+		long generation = model.getGeneration();
+		model.restore(snapshot);
+		journal.writeRestore(generation, snapshot);
+	}
+
+	/**
+	 * Goes back without recording it, as a replay reaches the generation by
+	 * stepping. Changes made afterwards are stamped with the earlier generation.
+	 */
+	@Override
+	public synchronized void rewind(BoardSnapshot snapshot) {
+		model.rewind(snapshot);
+	}
+
+	@Override
+	public synchronized DensityPyramid getDensityPyramid() {
+		return model.getDensityPyramid();
+	}
+
+	@Override
+	public synchronized void setCells(boolean[][] cells) {
+		model.setCells(cells);
+		journal.writeSetCells(model.getGeneration(), cells);
+	}
+
+	@Override
+	public synchronized void setCellState(int row, int col, boolean alive) {
+		model.setCellState(row, col, alive);
+		journal.writeSetCell(model.getGeneration(), row, col, alive);
+	}
+
+	@Override
+	public synchronized void generateRandomBoard() {
+		generateRandomBoard(random.nextLong(), RandomBoardGenerator.DEFAULT_DENSITY);
+	}
+
+	@Override
+	public synchronized void generateRandomBoard(long seed, double density) {
+		model.generateRandomBoard(seed, density);
+		journal.writeRandom(model.getGeneration(), seed, density);
+	}
+
+	@Override
+	public synchronized void clearBoard() {
+		model.clearBoard();
+		journal.writeClear(model.getGeneration());
+	}
+
+	@Override
+	public synchronized void setNeighborCountingStrategy(NeighborCountingStrategy strategy) {
+		model.setNeighborCountingStrategy(strategy);
+		journal.writeStrategy(model.getGeneration(), strategy);
+	}
+
+	@Override
+	public synchronized void setRule(Rule rule) {
+		model.setRule(rule);
+		journal.writeRule(model.getGeneration(), rule);
+	}
+
+	public IGameOfLife getModel() {
+		return model;
+	}
+
+	public Journal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Marks the current generation as the end of the run and closes the journal.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		journal.close(model.getGeneration());
+	}
+}
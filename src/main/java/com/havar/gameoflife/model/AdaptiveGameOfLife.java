@@ -0,0 +1,341 @@
+package com.havar.gameoflife.model;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithBordersStrategy;
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.ConwayRule;
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import com.havar.gameoflife.model.rules.Rule;
+
+/**
+ * Game of Life model that picks the engine best suited for the board as it
+ * evolves, and moves the board between engines as the board changes.
+ *
+ * Every {@link #SAMPLE_INTERVAL} generations the board is sampled: the density
+ * of live cells, the share of cells that changed over the last few generations
+ * and whether the whole board repeats with a short period. Busy boards run on
+ * {@link GameOfLifeLogic}, or on {@link ParallelGameOfLifeLogic} when they are
+ * large enough to be worth splitting. Sparse, quiet or periodic boards run on
+ * {@link SparseGameOfLifeLogic}. Rules with more than two states always run on
+ * {@link GenerationsLogic}.
+ *
+ * A switch happens between two generations by restoring a snapshot into the new
+ * engine. The time per generation is measured before and after, and the switch
+ * is undone if the new engine turns out to be slower. Every switch is logged
+ * together with the measured speedup.
+ *
+ * Stepping, and with it any switch, holds the lock of this model, as do all
+ * changes passed on to the engine. An edit from another thread therefore never
+ * lands in the engine that is being replaced.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class AdaptiveGameOfLife implements IGameOfLife {
+	public static final int SAMPLE_INTERVAL = 128;
+	private static final int MAX_PERIOD = 6;
+	private static final int WINDOW = MAX_PERIOD + 1;
+	private static final double SPARSE_DENSITY = 0.02;
+	private static final double SPARSE_ACTIVITY = 0.02;
+	private static final int PARALLEL_MIN_CELLS = 256 * 256;
+	private static final double MIN_SPEEDUP = 0.9;
+	private static final int COOLDOWN_SAMPLES = 8;
+
+	private static final Logger LOGGER = Logger.getLogger(AdaptiveGameOfLife.class.getName());
+
+	/**
+	 * The engines the board can run on.
+	 */
+	public enum Engine {
+		DENSE, SPARSE, PARALLEL, GENERATIONS
+	}
+
+	private volatile IGameOfLife engine;
+	private Engine engineType = Engine.DENSE;
+	private Rule rule = new ConwayRule();
+	private NeighborCountingStrategy neighborCountingStrategy = new CountNeighborsWithBordersStrategy();
+
+	private final PackedBoard[] window = new PackedBoard[WINDOW];
+	private final long[] windowGenerations = new long[WINDOW];
+	private long elapsedNanos;
+	private int timedGenerations;
+	private Engine trialPrevious; // The engine before the last switch, while it is being measured
+	private double trialBaseline;
+	private final Map<Engine, Long> cooldownUntil = new EnumMap<>(Engine.class);
+
+	public AdaptiveGameOfLife(int rows, int columns) {
+		this.engine = create(Engine.DENSE, rows, columns);
+		resetSamples();
+	}
+
+	@Override
+	public synchronized boolean[][] nextIteration() {
+		long start = System.nanoTime();
+		boolean[][] cells = engine.nextIteration();
+		elapsedNanos += System.nanoTime() - start;
+		timedGenerations++;
+
+		long generation = engine.getGeneration();
+		long phase = generation % SAMPLE_INTERVAL;
+		if (engineType != Engine.GENERATIONS && (phase == 0 || phase > SAMPLE_INTERVAL - WINDOW)) {
+			record(cells, generation);
+			if (phase == 0) {
+				evaluate(generation);
+			}
+		}
+		return engine.getCells();
+	}
+
+	/**
+	 * @return The kind of engine the board currently runs on.
+	 */
+	public synchronized Engine getEngineType() {
+		return engineType;
+	}
+
+	/**
+	 * @return The engine the board currently runs on.
+	 */
+	public synchronized IGameOfLife getEngine() {
+		return engine;
+	}
+
+	@Override
+	public synchronized int countNeighbors(int rowPosition, int colPosition) {
+		return engine.countNeighbors(rowPosition, colPosition);
+	}
+
+	@Override
+	public synchronized void resizeGrid(int size) {
+		engine.resizeGrid(size);
+		resetSamples();
+	}
+
+	@Override
+	public synchronized boolean[][] getCells() {
+		return engine.getCells();
+	}
+
+	@Override
+	public synchronized BoardSnapshot snapshot() {
+		return engine.snapshot();
+	}
+
+	@Override
+	public synchronized long getGeneration() {
+		return engine.getGeneration();
+	}
+
+	@Override
+	public synchronized void restore(BoardSnapshot snapshot) {
+		engine.restore(snapshot);
+		resetSamples();
+	}
+
+	@Override
+	public synchronized DensityPyramid getDensityPyramid() {
+		return engine.getDensityPyramid();
+	}
+
+	@Override
+	public synchronized void setCells(boolean[][] cells) {
+		engine.setCells(cells);
+		resetSamples();
+	}
+
+	@Override
+	public synchronized void setCellState(int row, int col, boolean alive) {
+		engine.setCellState(row, col, alive);
+	}
+
+	@Override
+	public synchronized void generateRandomBoard() {
+		engine.generateRandomBoard();
+		resetSamples();
+	}
+
+	@Override
+	public synchronized void generateRandomBoard(long seed, double density) {
+		engine.generateRandomBoard(seed, density);
+		resetSamples();
+	}
+
+	@Override
+	public synchronized void clearBoard() {
+		engine.clearBoard();
+		resetSamples();
+	}
+
+	@Override
+	public synchronized void setNeighborCountingStrategy(NeighborCountingStrategy strategy) {
+		this.neighborCountingStrategy = strategy;
+		engine.setNeighborCountingStrategy(strategy);
+	}
+
+	/**
+	 * Changes the rule of the board, moving the board to or from
+	 * {@link GenerationsLogic} when the amount of states requires it.
+	 */
+	@Override
+	public synchronized void setRule(Rule rule) {
+		this.rule = rule;
+		boolean multiState = rule instanceof GenerationsRule && ((GenerationsRule) rule).getStateCount() > 2;
+		if (multiState && engineType != Engine.GENERATIONS) {
+			migrate(Engine.GENERATIONS);
+		} else if (!multiState && engineType == Engine.GENERATIONS) {
+			migrate(Engine.DENSE);
+		} else {
+			engine.setRule(rule);
+		}
+		trialPrevious = null;
+		resetSamples();
+	}
+
+	private void record(boolean[][] cells, long generation) {
+		int index = slot(generation);
+		int rows = cells.length;
+		int columns = rows == 0 ? 0 : cells[0].length;
+		if (window[index] == null || window[index].getRows() != rows || window[index].getColumns() != columns) {
+			window[index] = new PackedBoard(rows, columns);
+		}
+		window[index].pack(cells);
+		windowGenerations[index] = generation;
+	}
+
+	/**
+	 * Samples the board at the end of an interval and switches engines if another
+	 * engine fits the board better, or if the last switch did not pay off.
+	 */
+	private void evaluate(long generation) {
+		double nanosPerGeneration = (double) elapsedNanos / Math.max(1, timedGenerations);
+		elapsedNanos = 0;
+		timedGenerations = 0;
+
+		if (trialPrevious != null) {
+			double speedup = trialBaseline / nanosPerGeneration;
+			LOGGER.info(String.format("%s measured %.2fx the speed of %s (%.0f us per generation)", engineType,
+					speedup, trialPrevious, nanosPerGeneration / 1000));
+			Engine previous = trialPrevious;
+			trialPrevious = null;
+			if (speedup < MIN_SPEEDUP) {
+				cooldownUntil.put(engineType, generation + COOLDOWN_SAMPLES * SAMPLE_INTERVAL);
+				LOGGER.info("Switching back from " + engineType + " to " + previous + " at generation " + generation);
+				migrate(previous);
+				return;
+			}
+		}
+
+		if (!isWindowComplete(generation)) {
+			return;
+		}
+		PackedBoard current = window[slot(generation)];
+		double area = Math.max(1, (double) current.getRows() * current.getColumns());
+		double density = engine.getDensityPyramid().getPopulation() / area;
+		double activity = averageChanges(generation) / area;
+		int period = findPeriod(generation);
+
+		Engine preferred = choose(density, activity, period, current.getRows() * current.getColumns());
+		if (preferred == engineType || generation < cooldownUntil.getOrDefault(preferred, 0L)) {
+			return;
+		}
+		LOGGER.info(String.format(
+				"Switching from %s to %s at generation %d (density %.3f, activity %.3f, period %d, %.0f us per generation)",
+				engineType, preferred, generation, density, activity, period, nanosPerGeneration / 1000));
+		trialPrevious = engineType;
+		trialBaseline = nanosPerGeneration;
+		migrate(preferred);
+	}
+
+	private Engine choose(double density, double activity, int period, int cells) {
+		if ((density < SPARSE_DENSITY || activity < SPARSE_ACTIVITY || period > 0)
+				&& SparseGameOfLifeLogic.isSupported(neighborCountingStrategy)) {
+			return Engine.SPARSE;
+		}
+		if (cells >= PARALLEL_MIN_CELLS && Runtime.getRuntime().availableProcessors() > 1) {
+			return Engine.PARALLEL;
+		}
+		return Engine.DENSE;
+	}
+
+	/**
+	 * @return True if the window holds the generations right before the given
+	 *         one, and not generations from before a restore or resize.
+	 */
+	private boolean isWindowComplete(long generation) {
+		for (int k = 0; k < WINDOW; k++) {
+			int index = slot(generation - k);
+			if (window[index] == null || windowGenerations[index] != generation - k) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private double averageChanges(long generation) {
+		long changes = 0;
+		for (int k = 0; k < WINDOW - 1; k++) {
+			long[] newer = window[slot(generation - k)].getWords();
+			long[] older = window[slot(generation - k - 1)].getWords();
+			for (int w = 0; w < newer.length; w++) {
+				changes += Long.bitCount(newer[w] ^ older[w]);
+			}
+		}
+		return (double) changes / (WINDOW - 1);
+	}
+
+	/**
+	 * @return The smallest period up to {@link #MAX_PERIOD} with which the whole
+	 *         board repeats, or 0 if there is none.
+	 */
+	private int findPeriod(long generation) {
+		long[] current = window[slot(generation)].getWords();
+		for (int period = 1; period <= MAX_PERIOD; period++) {
+			if (Arrays.equals(current, window[slot(generation - period)].getWords())) {
+				return period;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Moves the board, including its generation number, rule and neighbour
+	 * counting strategy, to a new engine.
+	 */
+	private void migrate(Engine target) {
+		BoardSnapshot snapshot = engine.snapshot();
+		IGameOfLife replacement = create(target, snapshot.getRows(), snapshot.getColumns());
+		replacement.setRule(rule);
+		replacement.setNeighborCountingStrategy(neighborCountingStrategy);
+		replacement.restore(snapshot);
+		snapshot.release();
+		engine = replacement;
+		engineType = target;
+	}
+
+	private static int slot(long generation) {
+		return (int) Math.floorMod(generation, (long) WINDOW);
+	}
+
+	private void resetSamples() {
+		elapsedNanos = 0;
+		timedGenerations = 0;
+		Arrays.fill(windowGenerations, -1);
+	}
+
+	private static IGameOfLife create(Engine type, int rows, int columns) {
+		switch (type) {
+		case SPARSE:
+			return new SparseGameOfLifeLogic(rows, columns);
+		case PARALLEL:
+			return new ParallelGameOfLifeLogic(rows, columns);
+		case GENERATIONS:
+			return new GenerationsLogic(rows, columns);
+		default:
+			return new GameOfLifeLogic(rows, columns);
+		}
+	}
+}
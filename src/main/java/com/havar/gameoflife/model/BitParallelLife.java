@@ -0,0 +1,66 @@
+package com.havar.gameoflife.model;
+
+/**
+ * Conway's rules applied to 64 cells at once. Each bit of a long is a separate
+ * cell, and the eight neighbour counts are added with a tree of bitwise half
+ * and full adders instead of one counter per cell.
+ *
+ * @author Havar Ameen
+ *
+ */
+public final class BitParallelLife {
+
+	private BitParallelLife() {
+	}
+
+	/**
+	 * Computes the next state of 64 cells from their eight neighbours.
+	 *
+	 * @param alive The current state of the cells.
+	 * @return A bit set for each cell that is alive in the next generation.
+	 */
+	public static long next(long alive, long n1, long n2, long n3, long n4, long n5, long n6, long n7, long n8) {
+		// Add the neighbours in pairs, then the pairs into two 3-bit sums.
+		long s12 = n1 ^ n2, c12 = n1 & n2;
+		long s34 = n3 ^ n4, c34 = n3 & n4;
+		long s56 = n5 ^ n6, c56 = n5 & n6;
+		long s78 = n7 ^ n8, c78 = n7 & n8;
+
+		long sumA0 = s12 ^ s34, carryA = s12 & s34;
+		long sumA1 = c12 ^ c34 ^ carryA;
+		long sumA2 = (c12 & c34) | ((c12 ^ c34) & carryA);
+
+		long sumB0 = s56 ^ s78, carryB = s56 & s78;
+		long sumB1 = c56 ^ c78 ^ carryB;
+		long sumB2 = (c56 & c78) | ((c56 ^ c78) & carryB);
+
+		long bit0 = sumA0 ^ sumB0, carry0 = sumA0 & sumB0;
+		long bit1 = sumA1 ^ sumB1 ^ carry0;
+		long carry1 = (sumA1 & sumB1) | ((sumA1 ^ sumB1) & carry0);
+		long fourOrMore = sumA2 | sumB2 | carry1;
+
+		// Three neighbours, or two neighbours and alive.
+		return bit1 & ~fourOrMore & (bit0 | alive);
+	}
+
+	/**
+	 * Steps a board of at most 64 columns stored as one long per row. Cells
+	 * outside the board count as dead.
+	 *
+	 * @param source      The current generation.
+	 * @param destination Receives the next generation, must not be the source.
+	 * @param rows        The amount of rows to step.
+	 * @param columnMask  A bit set for each column that is part of the board.
+	 */
+	public static void stepRows(long[] source, long[] destination, int rows, long columnMask) {
+		long up = 0L;
+		long mid = source[0];
+		for (int i = 0; i < rows; i++) {
+			long down = i + 1 < rows ? source[i + 1] : 0L;
+			destination[i] = next(mid, up << 1, up, up >>> 1, mid << 1, mid >>> 1, down << 1, down, down >>> 1)
+					& columnMask;
+			up = mid;
+			mid = down;
+		}
+	}
+}
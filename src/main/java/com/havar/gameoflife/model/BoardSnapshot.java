@@ -0,0 +1,172 @@
+package com.havar.gameoflife.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only handle to a single generation of the board.
+ *
+ * A snapshot shares its storage with the engine that created it instead of
+ * copying the board. The engine will not write into an array while a snapshot
+ * of it is still retained; it either copies the board on the next edit
+ * (copy-on-write) or allocates a fresh buffer for the next generation. Call
+ * {@link #release()} once the snapshot is no longer needed so the engine can
+ * reuse the storage again.
+ *
+ * @author Havar Ameen
+ *
+ */
+public final class BoardSnapshot {
+	private final boolean[][] cells;
+	private final byte[][] states;
+	private final int stateCount;
+	private final long generation;
+	private final AtomicInteger references = new AtomicInteger(1);
+
+	/**
+	 * Creates a snapshot which takes ownership of the given cells. The caller must
+	 * not modify the array afterwards.
+	 *
+	 * @param cells      The cells of the generation.
+	 * @param generation The generation number of the cells.
+	 */
+	public BoardSnapshot(boolean[][] cells, long generation) {
+		this(cells, null, 2, generation);
+	}
+
+	/**
+	 * Creates a snapshot of a board with more than two states, which takes
+	 * ownership of the given arrays.
+	 *
+	 * @param cells      The live cells of the generation.
+	 * @param states     The state of each cell, 0 for dead and 1 for alive.
+	 * @param stateCount The amount of states a cell can have.
+	 * @param generation The generation number of the cells.
+	 */
+	public BoardSnapshot(boolean[][] cells, byte[][] states, int stateCount, long generation) {
+		this.cells = cells;
+		this.states = states;
+		this.stateCount = stateCount;
+		this.generation = generation;
+	}
+
+	public boolean isAlive(int row, int col) {
+		return cells[row][col];
+	}
+
+	/**
+	 * @return The state of the cell: 0 for dead, 1 for alive and higher values for
+	 *         the states a cell passes through while dying.
+	 */
+	public int getState(int row, int col) {
+		if (states == null) {
+			return cells[row][col] ? 1 : 0;
+		}
+		return states[row][col] & 0xff;
+	}
+
+	/**
+	 * @return The amount of states a cell can have, 2 for an ordinary board.
+	 */
+	public int getStateCount() {
+		return stateCount;
+	}
+
+	public boolean hasStates() {
+		return states != null;
+	}
+
+	public int getRows() {
+		return cells.length;
+	}
+
+	public int getColumns() {
+		return cells.length == 0 ? 0 : cells[0].length;
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Counts the live cells of this generation.
+	 *
+	 * @return The population.
+	 */
+	public int getPopulation() {
+		int population = 0;
+		for (boolean[] row : cells) {
+			for (boolean cell : row) {
+				if (cell) {
+					population++;
+				}
+			}
+		}
+		return population;
+	}
+
+	/**
+	 * Creates a deep copy of the cells, which the caller is free to modify.
+	 *
+	 * @return A copy of the cells.
+	 */
+	public boolean[][] copyCells() {
+		boolean[][] copy = new boolean[cells.length][];
+		for (int i = 0; i < cells.length; i++) {
+			copy[i] = cells[i].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * Creates a deep copy of the cell states, which the caller is free to modify.
+	 *
+	 * @return A copy of the states, derived from the live cells for an ordinary
+	 *         board.
+	 */
+	public byte[][] copyStates() {
+		byte[][] copy = new byte[cells.length][];
+		for (int i = 0; i < cells.length; i++) {
+			if (states != null) {
+				copy[i] = states[i].clone();
+			} else {
+				copy[i] = new byte[cells[i].length];
+				for (int j = 0; j < cells[i].length; j++) {
+					copy[i][j] = (byte) (cells[i][j] ? 1 : 0);
+				}
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Adds another reference to this snapshot. Every call must be matched by a
+	 * call to {@link #release()}.
+	 *
+	 * @return This snapshot.
+	 */
+	public BoardSnapshot retain() {
+		references.incrementAndGet();
+		return this;
+	}
+
+	/**
+	 * Drops a reference to this snapshot. Safe to call from any thread.
+	 */
+	public void release() {
+		if (references.decrementAndGet() < 0) {
+			references.incrementAndGet();
+			throw new IllegalStateException("Snapshot has already been released.");
+		}
+	}
+
+	/**
+	 * @return True if any reader still holds on to this snapshot.
+	 */
+	boolean isRetained() {
+		return references.get() > 0;
+	}
+
+	boolean sharesStorageWith(boolean[][] array) {
+		return cells == array;
+	}
+}
@@ -0,0 +1,163 @@
+package com.havar.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Population counts of the board aggregated over square blocks of 2^k x 2^k
+ * cells, one level per k. Used to draw zoomed out boards at a cost
+ * proportional to the screen size instead of the board size.
+ *
+ * The engine keeps the counts up to date incrementally: every cell that
+ * changes state adjusts one counter per level. Levels below
+ * {@link #MIN_LEVEL} are not stored, as they would use more memory than the
+ * board itself while a renderer can just as well sample the cells.
+ *
+ * The counts are written by the simulation thread without synchronization.
+ * Readers on other threads should use a {@link #copy()} taken together with the
+ * snapshot of the board it belongs to.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class DensityPyramid {
+	public static final int MIN_LEVEL = 2;
+
+	private final int rows, columns;
+	private final int maxLevel;
+	private final int[][] counts;
+	private final int[] levelColumns;
+
+	public DensityPyramid(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		int level = MIN_LEVEL;
+		while ((1 << level) < Math.max(rows, columns)) {
+			level++;
+		}
+		this.maxLevel = level;
+		this.counts = new int[maxLevel + 1][];
+		this.levelColumns = new int[maxLevel + 1];
+		for (int k = MIN_LEVEL; k <= maxLevel; k++) {
+			levelColumns[k] = blocks(columns, k);
+			counts[k] = new int[blocks(rows, k) * levelColumns[k]];
+		}
+	}
+
+	private DensityPyramid(DensityPyramid source) {
+		this.rows = source.rows;
+		this.columns = source.columns;
+		this.maxLevel = source.maxLevel;
+		this.levelColumns = source.levelColumns;
+		this.counts = new int[maxLevel + 1][];
+		for (int k = MIN_LEVEL; k <= maxLevel; k++) {
+			counts[k] = source.counts[k].clone();
+		}
+	}
+
+	/**
+	 * @return The counts as they are now, which later changes to this pyramid do
+	 *         not affect. Costs about a third of a byte per cell of the board.
+	 */
+	public DensityPyramid copy() {
+		return new DensityPyramid(this);
+	}
+
+	/**
+	 * Recomputes all counts from the given cells.
+	 */
+	public void rebuild(boolean[][] cells) {
+		for (int k = MIN_LEVEL; k <= maxLevel; k++) {
+			Arrays.fill(counts[k], 0);
+		}
+		int[] base = counts[MIN_LEVEL];
+		int baseColumns = levelColumns[MIN_LEVEL];
+		for (int i = 0; i < rows; i++) {
+			int offset = (i >> MIN_LEVEL) * baseColumns;
+			for (int j = 0; j < columns; j++) {
+				if (cells[i][j]) {
+					base[offset + (j >> MIN_LEVEL)]++;
+				}
+			}
+		}
+		rebuildUpperLevels();
+	}
+
+	/**
+	 * Recomputes the levels above {@link #MIN_LEVEL} from the lowest level, after
+	 * it has been changed through {@link #updateLowestLevel}.
+	 */
+	public void rebuildUpperLevels() {
+		for (int k = MIN_LEVEL + 1; k <= maxLevel; k++) {
+			Arrays.fill(counts[k], 0);
+			int[] below = counts[k - 1];
+			int belowColumns = levelColumns[k - 1];
+			int belowRows = below.length / belowColumns;
+			for (int i = 0; i < belowRows; i++) {
+				for (int j = 0; j < belowColumns; j++) {
+					counts[k][(i >> 1) * levelColumns[k] + (j >> 1)] += below[i * belowColumns + j];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registers that a single cell changed state.
+	 *
+	 * @param row   The row of the cell.
+	 * @param col   The column of the cell.
+	 * @param alive The new state of the cell.
+	 */
+	public void update(int row, int col, boolean alive) {
+		int delta = alive ? 1 : -1;
+		for (int k = MIN_LEVEL; k <= maxLevel; k++) {
+			counts[k][(row >> k) * levelColumns[k] + (col >> k)] += delta;
+		}
+	}
+
+	/**
+	 * Registers that a single cell changed state, in the lowest level only.
+	 * Several threads may update at the same time as long as each works on its
+	 * own band of rows, aligned to the block size of {@link #MIN_LEVEL}. Call
+	 * {@link #rebuildUpperLevels()} afterwards.
+	 */
+	public void updateLowestLevel(int row, int col, boolean alive) {
+		counts[MIN_LEVEL][(row >> MIN_LEVEL) * levelColumns[MIN_LEVEL] + (col >> MIN_LEVEL)] += alive ? 1 : -1;
+	}
+
+	/**
+	 * @return The amount of live cells on the whole board.
+	 */
+	public int getPopulation() {
+		return counts[maxLevel][0];
+	}
+
+	/**
+	 * @param level    The level, between {@link #MIN_LEVEL} and
+	 *                 {@link #getMaxLevel()}.
+	 * @param blockRow The row of the block, in blocks of 2^level cells.
+	 * @param blockCol The column of the block, in blocks of 2^level cells.
+	 * @return The amount of live cells in the block.
+	 */
+	public int getCount(int level, int blockRow, int blockCol) {
+		return counts[level][blockRow * levelColumns[level] + blockCol];
+	}
+
+	/**
+	 * @return The level where a single block covers the whole board.
+	 */
+	public int getMaxLevel() {
+		return maxLevel;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	private static int blocks(int cells, int level) {
+		return (cells + (1 << level) - 1) >> level;
+	}
+}
@@ -4,6 +4,8 @@ import java.util.Random;
 
 import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithBordersStrategy;
 import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.ConwayRule;
+import com.havar.gameoflife.model.rules.Rule;
 
 /**
  * The model class for Havars Game of Life.
@@ -16,13 +18,18 @@ public class GameOfLifeLogic implements IGameOfLife {
 	private boolean[][] cells;
 	private boolean[][] nextIteration;
 	private NeighborCountingStrategy neighborCountingStrategy;
+	private Rule rule = new ConwayRule();
 	private Random random = new Random();
+	private long generation;
+	private BoardSnapshot currentSnapshot;
+	private DensityPyramid densityPyramid;
 
 	public GameOfLifeLogic(int rows, int columns) {
 		this.rows = rows;
 		this.columns = columns;
 		this.cells = new boolean[rows][columns];
 		this.nextIteration = new boolean[rows][columns];
+		this.densityPyramid = new DensityPyramid(rows, columns);
 		neighborCountingStrategy = new CountNeighborsWithBordersStrategy();
 	}
 
@@ -33,47 +40,102 @@ public class GameOfLifeLogic implements IGameOfLife {
 	 */
 	@Override
 	public void generateRandomBoard() {
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < columns; j++) {
-				cells[i][j] = random.nextBoolean();
-			}
-		}
+		generateRandomBoard(random.nextLong(), RandomBoardGenerator.DEFAULT_DENSITY);
+	}
+
+	/**
+	 * Generates a random board from a seed, see {@link RandomBoardGenerator}. The
+	 * same seed and density always give the same board.
+	 * 
+	 * @param density The share of cells that are alive, between 0 and 1.
+	 */
+	@Override
+	public void generateRandomBoard(long seed, double density) {
+		RandomBoardGenerator generator = new RandomBoardGenerator(seed, density);
+		detachSnapshot();
+		generator.fill(cells);
+		densityPyramid.rebuild(cells);
 	}
 
 	@Override
 	public void clearBoard() {
 		this.cells = new boolean[rows][columns];
+		currentSnapshot = null;
+		densityPyramid.rebuild(cells);
 	}
 
 	/**
-	 * Defines the next iteration of cells based on the cells of the current cells.
-	 * Applies the following logic:
+	 * Defines the next iteration of cells based on the cells of the current cells,
+	 * using the rule of the board ({@link ConwayRule} unless changed).
 	 * 
-	 * 1: Any live cell with two or three live neighbours survives. 2: Any dead cell
-	 * with three live neighbours becomes a live cell. 3: All other live cells die
-	 * in the next generation. Similarly, all other dead cells stay dead.
+	 * The two cell arrays are used as ping-pong buffers. The previous generation
+	 * is only reused for the next write if no snapshot of it is still retained.
+	 * The rule and strategy are read once, so a generation is computed with the
+	 * strategy that was prepared for it even if they are replaced meanwhile.
 	 */
 	@Override
 	public boolean[][] nextIteration() {
+		NeighborCountingStrategy neighborCountingStrategy = this.neighborCountingStrategy;
+		Rule rule = this.rule;
+		neighborCountingStrategy.prepare(cells, rows, columns);
 		for (int i = 0; i < columns; i++) {
 			for (int j = 0; j < rows; j++) {
 
-				int aliveNeighbors = countNeighbors(i, j);
+				int aliveNeighbors = neighborCountingStrategy.countNeighbors(i, j, cells, rows, columns);
+				boolean alive = cells[i][j];
+				boolean next = rule.nextState(alive, aliveNeighbors);
 
-				if (cells[i][j] == true && (aliveNeighbors == 2 || aliveNeighbors == 3)) { // Rule 1
-					nextIteration[i][j] = true;
-				} else if (cells[i][j] == false && aliveNeighbors == 3) { // Rule 2
-					nextIteration[i][j] = true;
-				} else {
-					nextIteration[i][j] = false; // Rule 3
+				nextIteration[i][j] = next;
+				if (next != alive) {
+					densityPyramid.update(i, j, next);
 				}
 			}
 		}
+		return advanceGeneration();
+	}
+
+	/**
+	 * Makes the next generation buffer the current generation, once it has been
+	 * filled in.
+	 * 
+	 * @return The new current generation.
+	 */
+	protected final boolean[][] advanceGeneration() {
+		boolean[][] previous = cells;
 		cells = nextIteration;
-		nextIteration = new boolean[rows][columns];
+		if (isSnapshotRetained()) {
+			nextIteration = new boolean[rows][columns];
+		} else {
+			nextIteration = previous;
+		}
+		currentSnapshot = null;
+		generation++;
 		return cells;
 	}
 
+	/**
+	 * @return The buffer the next generation is written into.
+	 */
+	protected final boolean[][] getNextBuffer() {
+		return nextIteration;
+	}
+
+	/**
+	 * @return True if a reader still holds a snapshot of the current generation,
+	 *         so its storage must not be written to.
+	 */
+	protected final boolean isSnapshotRetained() {
+		return currentSnapshot != null && currentSnapshot.isRetained();
+	}
+
+	/**
+	 * Creates the snapshot handed out by {@link #snapshot()}. Subclasses with
+	 * additional state add it here.
+	 */
+	protected BoardSnapshot createSnapshot(boolean[][] cells, long generation) {
+		return new BoardSnapshot(cells, generation);
+	}
+
 	/**
 	 * Counts the amount of adjacent cells that are alive. Excludes itself and skips
 	 * cells tha would fall out of bounds of the defined table.
@@ -81,12 +143,17 @@ public class GameOfLifeLogic implements IGameOfLife {
 	 * [ (-1,-1), (0,-1), (1,-1) ] [ (-1, 0), ( X ), (1, 0) ] [ (-1, 1), (0, 1), (1,
 	 * 1) ]
 	 * 
+	 * Strategies that count a whole generation at once redo that on every call, so
+	 * this is meant for single lookups. {@link #nextIteration()} prepares the
+	 * strategy only once per generation.
+	 * 
 	 * @param rowPosition The row position to check (x-coordinate)
 	 * @param colPosition The column position to check (y-coordinate)
 	 * @return
 	 */
 	@Override
 	public int countNeighbors(int rowPosition, int colPosition) {
+		neighborCountingStrategy.prepare(cells, rows, columns);
 		return neighborCountingStrategy.countNeighbors(rowPosition, colPosition, cells, rows, columns);
 	}
 
@@ -108,23 +175,103 @@ public class GameOfLifeLogic implements IGameOfLife {
 		boolean[][] newCells = new boolean[size][size];
 		nextIteration = new boolean[size][size];
 		cells = newCells;
+		currentSnapshot = null;
 		rows = size;
 		columns = size;
+		densityPyramid = new DensityPyramid(size, size);
 	}
 
+	/**
+	 * Returns the live cell array of the current generation. The array is reused
+	 * as a buffer by later generations, use {@link #snapshot()} to get a stable
+	 * view of the board.
+	 */
 	@Override
 	public boolean[][] getCells() {
 		return cells;
 	}
 
+	/**
+	 * Returns a read-only snapshot of the current generation. The snapshot shares
+	 * storage with the board until the board is edited or stepped, so taking one
+	 * per frame costs no copying. Must be called from the thread driving the
+	 * simulation.
+	 */
+	@Override
+	public BoardSnapshot snapshot() {
+		if (currentSnapshot != null && currentSnapshot.sharesStorageWith(cells)) {
+			return currentSnapshot.retain();
+		}
+		currentSnapshot = createSnapshot(cells, generation);
+		return currentSnapshot;
+	}
+
+	@Override
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Replaces the board with the given generation, resizing the board if needed.
+	 * 
+	 * @param snapshot The generation to continue from.
+	 */
+	@Override
+	public void restore(BoardSnapshot snapshot) {
+		rows = snapshot.getRows();
+		columns = snapshot.getColumns();
+		cells = snapshot.copyCells();
+		nextIteration = new boolean[rows][columns];
+		generation = snapshot.getGeneration();
+		currentSnapshot = null;
+		densityPyramid = new DensityPyramid(rows, columns);
+		densityPyramid.rebuild(cells);
+	}
+
+	@Override
 	public void setCells(boolean[][] cells) {
 		this.cells = cells;
+		currentSnapshot = null;
+		densityPyramid.rebuild(cells);
 	}
 
+	@Override
 	public void setCellState(int i, int j, boolean b) {
+		detachSnapshot();
+		if (cells[i][j] != b) {
+			densityPyramid.update(i, j, b);
+		}
 		cells[i][j] = b;
 	}
 
+	/**
+	 * Returns the block population counts of the board, kept up to date as the
+	 * board changes. A new pyramid is created when the board is resized.
+	 */
+	@Override
+	public DensityPyramid getDensityPyramid() {
+		return densityPyramid;
+	}
+
+	/**
+	 * Copies the cells before they are modified in place if a reader still holds a
+	 * snapshot of them.
+	 */
+	protected final void detachSnapshot() {
+		if (isSnapshotRetained()) {
+			cells = currentSnapshot.copyCells();
+		}
+		currentSnapshot = null;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
 	public NeighborCountingStrategy getNeighborCountingStrategy() {
 		return neighborCountingStrategy;
 	}
@@ -133,4 +280,17 @@ public class GameOfLifeLogic implements IGameOfLife {
 	public void setNeighborCountingStrategy(NeighborCountingStrategy neighborCountingStrategy) {
 		this.neighborCountingStrategy = neighborCountingStrategy;
 	}
+
+	public Rule getRule() {
+		return rule;
+	}
+
+	/**
+	 * Changes the rule of the board. The neighbour counting strategy is not
+	 * changed, see {@link Rule#createNeighborCountingStrategy(boolean)}.
+	 */
+	@Override
+	public void setRule(Rule rule) {
+		this.rule = rule;
+	}
 }
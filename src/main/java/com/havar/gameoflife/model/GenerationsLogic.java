@@ -0,0 +1,194 @@
+package com.havar.gameoflife.model;
+
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import com.havar.gameoflife.model.rules.Rule;
+
+/**
+ * Game of Life model that also runs {@link GenerationsRule}s, where cells decay
+ * through several dying states before they are dead.
+ *
+ * The state of every cell is kept in a byte plane next to the boolean plane of
+ * live cells. Only live cells count as neighbours, so neighbours are still
+ * counted on the boolean plane by the neighbour counting strategy, and the
+ * state plane is only read to decide the next state of each cell.
+ *
+ * As long as the rule has two states no state plane is kept and generations are
+ * computed by {@link GameOfLifeLogic} as before.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class GenerationsLogic extends GameOfLifeLogic {
+	private GenerationsRule generationsRule;
+	private byte[][] states;
+	private byte[][] nextStates;
+
+	public GenerationsLogic(int rows, int columns) {
+		super(rows, columns);
+	}
+
+	@Override
+	public boolean[][] nextIteration() {
+		if (states == null) {
+			return super.nextIteration();
+		}
+
+		int rows = getRows();
+		int columns = getColumns();
+		boolean[][] cells = getCells();
+		boolean[][] nextCells = getNextBuffer();
+		NeighborCountingStrategy strategy = getNeighborCountingStrategy();
+		GenerationsRule generationsRule = this.generationsRule;
+		DensityPyramid densityPyramid = getDensityPyramid();
+
+		strategy.prepare(cells, rows, columns);
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				int state = states[i][j] & 0xff;
+				int aliveNeighbors = strategy.countNeighbors(i, j, cells, rows, columns);
+				int next = generationsRule.nextState(state, aliveNeighbors);
+
+				nextStates[i][j] = (byte) next;
+				nextCells[i][j] = next == 1;
+				if ((next == 1) != cells[i][j]) {
+					densityPyramid.update(i, j, next == 1);
+				}
+			}
+		}
+
+		byte[][] previous = states;
+		states = nextStates;
+		nextStates = isSnapshotRetained() ? new byte[rows][columns] : previous;
+		return advanceGeneration();
+	}
+
+	@Override
+	protected BoardSnapshot createSnapshot(boolean[][] cells, long generation) {
+		if (states == null) {
+			return super.createSnapshot(cells, generation);
+		}
+		return new BoardSnapshot(cells, states, generationsRule.getStateCount(), generation);
+	}
+
+	/**
+	 * @return The state of a cell: 0 for dead, 1 for alive and higher values for
+	 *         dying cells.
+	 */
+	public int getState(int row, int col) {
+		if (states == null) {
+			return getCells()[row][col] ? 1 : 0;
+		}
+		return states[row][col] & 0xff;
+	}
+
+	/**
+	 * Changes the rule of the board. Switching to a rule with more than two states
+	 * starts with all live cells in the alive state, switching back to a rule with
+	 * two states removes all dying cells.
+	 */
+	@Override
+	public void setRule(Rule rule) {
+		super.setRule(rule);
+		if (rule instanceof GenerationsRule && ((GenerationsRule) rule).getStateCount() > 2) {
+			boolean keepStates = states != null
+					&& generationsRule.getStateCount() == ((GenerationsRule) rule).getStateCount();
+			generationsRule = (GenerationsRule) rule;
+			if (!keepStates) {
+				resetStates(null);
+			}
+		} else {
+			generationsRule = null;
+			states = null;
+			nextStates = null;
+		}
+		detachSnapshot();
+	}
+
+	@Override
+	public void setCellState(int i, int j, boolean b) {
+		boolean retained = isSnapshotRetained();
+		super.setCellState(i, j, b);
+		if (states != null) {
+			if (retained) {
+				states = copyOf(states);
+			}
+			states[i][j] = (byte) (b ? 1 : 0);
+		}
+	}
+
+	@Override
+	public void generateRandomBoard(long seed, double density) {
+		super.generateRandomBoard(seed, density);
+		resetStates(null);
+	}
+
+	@Override
+	public void clearBoard() {
+		super.clearBoard();
+		resetStates(null);
+	}
+
+	@Override
+	public void resizeGrid(int size) {
+		super.resizeGrid(size);
+		resetStates(null);
+	}
+
+	@Override
+	public void setCells(boolean[][] cells) {
+		super.setCells(cells);
+		resetStates(null);
+	}
+
+	/**
+	 * Replaces the board with the given generation, including the dying cells if
+	 * the snapshot has them.
+	 */
+	@Override
+	public void restore(BoardSnapshot snapshot) {
+		super.restore(snapshot);
+		resetStates(snapshot.hasStates() ? snapshot.copyStates() : null);
+	}
+
+	/**
+	 * Replaces the state plane, if the rule needs one.
+	 *
+	 * @param newStates The new states, or null to derive them from the live cells.
+	 */
+	private void resetStates(byte[][] newStates) {
+		if (generationsRule == null) {
+			return;
+		}
+		int rows = getRows();
+		int columns = getColumns();
+		boolean[][] cells = getCells();
+		if (newStates == null) {
+			newStates = new byte[rows][columns];
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					newStates[i][j] = (byte) (cells[i][j] ? 1 : 0);
+				}
+			}
+		} else {
+			// Dying states past the amount of states of the current rule are dropped.
+			for (byte[] row : newStates) {
+				for (int j = 0; j < row.length; j++) {
+					if ((row[j] & 0xff) >= generationsRule.getStateCount()) {
+						row[j] = 0;
+					}
+				}
+			}
+		}
+		states = newStates;
+		nextStates = new byte[rows][columns];
+	}
+
+	private static byte[][] copyOf(byte[][] array) {
+		byte[][] copy = new byte[array.length][];
+		for (int i = 0; i < array.length; i++) {
+			copy[i] = array[i].clone();
+		}
+		return copy;
+	}
+}
@@ -1,6 +1,7 @@
 package com.havar.gameoflife.model;
 
 import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.Rule;
 
 /**
  * Interface class for Havars Game of Life. 
@@ -14,7 +15,26 @@ public interface IGameOfLife {
     int countNeighbors(int rowPosition, int colPosition);
     void resizeGrid(int size);
 	boolean[][] getCells();
+	BoardSnapshot snapshot();
+	long getGeneration();
+	void restore(BoardSnapshot snapshot);
+
+	/**
+	 * Goes back to a generation this model reached by stepping since its last
+	 * change, such as one computed ahead of the display. Unlike
+	 * {@link #restore(BoardSnapshot)} this is not a change of the board, so
+	 * models that record their changes do not record it.
+	 */
+	default void rewind(BoardSnapshot snapshot) {
+		restore(snapshot);
+	}
+
+	DensityPyramid getDensityPyramid();
+	void setCells(boolean[][] cells);
+	void setCellState(int row, int col, boolean alive);
 	void generateRandomBoard();
+	void generateRandomBoard(long seed, double density);
 	void clearBoard();
 	void setNeighborCountingStrategy(NeighborCountingStrategy strategy);
+	void setRule(Rule rule);
 }
\ No newline at end of file
@@ -0,0 +1,297 @@
+package com.havar.gameoflife.model;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Computes generations ahead of the display on a background thread, so the
+ * next frame is usually ready before it is asked for.
+ *
+ * The worker thread steps the model until {@code depth} frames are waiting and
+ * copies every generation into a ring of buffers that are allocated once and
+ * reused. A buffer is only replaced by a new one if a reader still holds the
+ * snapshot of the frame it held before. The frame on display and the one
+ * before it are never overwritten by the worker.
+ *
+ * The model belongs to the worker once the buffer is created, so all changes
+ * to it have to go through {@link #edit(Consumer)}. An edit drops the frames
+ * computed ahead, rewinds the model to the frame on display with
+ * {@link IGameOfLife#rewind(BoardSnapshot)} and applies the change there, after
+ * which the worker computes ahead again from the edited board. Closing the
+ * buffer rewinds the model to the frame on display as well.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class LookAheadBuffer implements AutoCloseable {
+	private static final int SPARE_SLOTS = 2; // The frame on display and the one before it
+
+	private final IGameOfLife model;
+	private final int depth;
+	private final Slot[] slots;
+	private final ReentrantLock modelLock = new ReentrantLock();
+	private final Thread worker;
+
+	private int head; // The oldest frame that has not been taken
+	private int ready;
+	private BoardSnapshot displayed;
+	private long invalidations;
+	private boolean closed;
+	private RuntimeException failure;
+
+	/**
+	 * Starts computing ahead of the current generation of the model, which is
+	 * the first frame.
+	 *
+	 * @param model The model to step, only to be changed through
+	 *              {@link #edit(Consumer)} from now on.
+	 * @param depth The amount of generations to compute ahead.
+	 */
+	public LookAheadBuffer(IGameOfLife model, int depth) {
+		if (depth <= 0) {
+			throw new IllegalArgumentException("Depth must be positive");
+		}
+		this.model = model;
+		this.depth = depth;
+		this.slots = new Slot[depth + SPARE_SLOTS];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = new Slot();
+		}
+		setDisplayed(publish());
+
+		this.worker = new Thread(this::run, "look-ahead");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Takes the next frame, waiting for it if it has not been computed yet. The
+	 * frame becomes the frame on display.
+	 *
+	 * @return The frame, to be released by the caller.
+	 * @throws IllegalStateException If the buffer was closed or the model failed.
+	 */
+	public synchronized BoardSnapshot take() throws InterruptedException {
+		while (ready == 0 && !closed) {
+			wait();
+		}
+		BoardSnapshot frame = poll();
+		if (frame == null) {
+			throw new IllegalStateException("The look-ahead buffer has been closed.", failure);
+		}
+		return frame;
+	}
+
+	/**
+	 * Takes the next frame if it is ready.
+	 *
+	 * @return The frame, to be released by the caller, or null if none is ready.
+	 */
+	public synchronized BoardSnapshot poll() {
+		if (ready == 0) {
+			return null;
+		}
+		BoardSnapshot frame = slots[head].snapshot;
+		head = (head + 1) % slots.length;
+		ready--;
+		setDisplayed(frame);
+		notifyAll();
+		return frame.retain();
+	}
+
+	/**
+	 * Changes the model at the frame on display. Waits for the generation the
+	 * worker is computing, if any. The edited board is the next frame.
+	 *
+	 * @param change Applied to the model on the calling thread.
+	 */
+	public void edit(Consumer<IGameOfLife> change) {
+		modelLock.lock();
+		try {
+			BoardSnapshot rewindTo;
+			synchronized (this) {
+				ready = 0;
+				invalidations++;
+				rewindTo = displayed;
+			}
+			if (model.getGeneration() != rewindTo.getGeneration()) {
+				model.rewind(rewindTo);
+			}
+			change.accept(model);
+			BoardSnapshot edited = publish();
+			synchronized (this) {
+				setDisplayed(edited);
+			}
+		} finally {
+			modelLock.unlock();
+		}
+	}
+
+	/**
+	 * @return The frame on display, to be released by the caller.
+	 */
+	public synchronized BoardSnapshot getDisplayed() {
+		return displayed.retain();
+	}
+
+	public synchronized long getDisplayedGeneration() {
+		return displayed.getGeneration();
+	}
+
+	/**
+	 * @return The amount of frames computed ahead that have not been taken.
+	 */
+	public synchronized int getReadyFrames() {
+		return ready;
+	}
+
+	/**
+	 * @return The amount of times frames computed ahead were dropped by edits.
+	 */
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Stops the worker thread once it has finished the generation it is
+	 * computing, and leaves the model at the frame on display. If the calling
+	 * thread is interrupted while waiting for the worker, it stops waiting and
+	 * its interrupt flag is set again.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		try {
+			worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		modelLock.lock();
+		try {
+			BoardSnapshot rewindTo;
+			synchronized (this) {
+				rewindTo = displayed;
+			}
+			if (model.getGeneration() != rewindTo.getGeneration()) {
+				model.rewind(rewindTo);
+			}
+		} finally {
+			modelLock.unlock();
+		}
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				synchronized (this) {
+					while (!closed && ready >= depth) {
+						wait();
+					}
+					if (closed) {
+						return;
+					}
+				}
+				modelLock.lock();
+				try {
+					synchronized (this) {
+						if (ready >= depth) {
+							continue; // An edit got in first and filled the ring
+						}
+					}
+					model.nextIteration();
+					publish();
+				} finally {
+					modelLock.unlock();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			synchronized (this) {
+				failure = e;
+				closed = true;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Copies the current generation of the model into the next free slot and
+	 * marks it as ready. Must be called while the model is locked or not yet
+	 * shared.
+	 *
+	 * @return The frame, still owned by the buffer.
+	 */
+	private BoardSnapshot publish() {
+		Slot slot;
+		synchronized (this) {
+			// Taking a frame does not move the end of the ready frames.
+			slot = slots[(head + ready) % slots.length];
+		}
+		BoardSnapshot current = model.snapshot();
+		try {
+			slot.fill(model.getCells(), current);
+		} finally {
+			current.release();
+		}
+		synchronized (this) {
+			ready++;
+			notifyAll();
+		}
+		return slot.snapshot;
+	}
+
+	private void setDisplayed(BoardSnapshot frame) {
+		frame.retain();
+		if (displayed != null) {
+			displayed.release();
+		}
+		displayed = frame;
+	}
+
+	/**
+	 * A buffer of the ring, with the frame it holds.
+	 */
+	private static final class Slot {
+		private boolean[][] cells;
+		private byte[][] states;
+		private BoardSnapshot snapshot;
+
+		void fill(boolean[][] source, BoardSnapshot current) {
+			int rows = current.getRows();
+			int columns = current.getColumns();
+			boolean reuse = true;
+			if (snapshot != null) {
+				snapshot.release();
+				reuse = !snapshot.isRetained();
+			}
+			if (!reuse || cells == null || cells.length != rows || rows > 0 && cells[0].length != columns) {
+				cells = new boolean[rows][columns];
+				states = null;
+			}
+			for (int i = 0; i < rows; i++) {
+				System.arraycopy(source[i], 0, cells[i], 0, columns);
+			}
+
+			if (current.hasStates()) {
+				if (states == null) {
+					states = new byte[rows][columns];
+				}
+				for (int i = 0; i < rows; i++) {
+					for (int j = 0; j < columns; j++) {
+						states[i][j] = (byte) current.getState(i, j);
+					}
+				}
+			}
+			snapshot = new BoardSnapshot(cells, current.hasStates() ? states : null, current.getStateCount(),
+					current.getGeneration());
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.havar.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Bit-packed representation of a board, storing 64 cells per long. Each row
+ * starts on a new word, so a row occupies {@link #getWordsPerRow()} words and
+ * the unused high bits of the last word of a row are always zero.
+ *
+ * @author Havar Ameen
+ *
+ */
+public final class PackedBoard {
+	private final int rows, columns;
+	private final int wordsPerRow;
+	private final long[] words;
+
+	public PackedBoard(int rows, int columns) {
+		if (rows <= 0 || columns <= 0) {
+			throw new IllegalArgumentException("Rows and columns must be positive");
+		}
+		this.rows = rows;
+		this.columns = columns;
+		this.wordsPerRow = (columns + 63) >>> 6;
+		this.words = new long[rows * wordsPerRow];
+	}
+
+	public static PackedBoard of(boolean[][] cells) {
+		PackedBoard board = new PackedBoard(cells.length, cells[0].length);
+		board.pack(cells);
+		return board;
+	}
+
+	public static PackedBoard of(BoardSnapshot snapshot) {
+		PackedBoard board = new PackedBoard(snapshot.getRows(), snapshot.getColumns());
+		board.pack(snapshot);
+		return board;
+	}
+
+	/**
+	 * Overwrites this board with the given cells, which must have the same
+	 * dimensions.
+	 */
+	public void pack(boolean[][] cells) {
+		checkDimensions(cells.length, cells[0].length);
+		for (int i = 0; i < rows; i++) {
+			boolean[] row = cells[i];
+			int offset = i * wordsPerRow;
+			for (int w = 0; w < wordsPerRow; w++) {
+				long word = 0L;
+				int start = w << 6;
+				int end = Math.min(start + 64, columns);
+				for (int j = start; j < end; j++) {
+					if (row[j]) {
+						word |= 1L << (j - start);
+					}
+				}
+				words[offset + w] = word;
+			}
+		}
+	}
+
+	/**
+	 * Overwrites this board with the given snapshot, which must have the same
+	 * dimensions.
+	 */
+	public void pack(BoardSnapshot snapshot) {
+		checkDimensions(snapshot.getRows(), snapshot.getColumns());
+		for (int i = 0; i < rows; i++) {
+			int offset = i * wordsPerRow;
+			for (int w = 0; w < wordsPerRow; w++) {
+				long word = 0L;
+				int start = w << 6;
+				int end = Math.min(start + 64, columns);
+				for (int j = start; j < end; j++) {
+					if (snapshot.isAlive(i, j)) {
+						word |= 1L << (j - start);
+					}
+				}
+				words[offset + w] = word;
+			}
+		}
+	}
+
+	/**
+	 * Writes the cells of this board into the given array, which must have the
+	 * same dimensions.
+	 */
+	public void unpack(boolean[][] cells) {
+		checkDimensions(cells.length, cells[0].length);
+		for (int i = 0; i < rows; i++) {
+			boolean[] row = cells[i];
+			int offset = i * wordsPerRow;
+			for (int j = 0; j < columns; j++) {
+				row[j] = (words[offset + (j >>> 6)] & (1L << j)) != 0;
+			}
+		}
+	}
+
+	public boolean[][] toCells() {
+		boolean[][] cells = new boolean[rows][columns];
+		unpack(cells);
+		return cells;
+	}
+
+	public boolean get(int row, int col) {
+		return (words[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+	}
+
+	public void set(int row, int col, boolean alive) {
+		int index = row * wordsPerRow + (col >>> 6);
+		if (alive) {
+			words[index] |= 1L << col;
+		} else {
+			words[index] &= ~(1L << col);
+		}
+	}
+
+	public int getPopulation() {
+		int population = 0;
+		for (long word : words) {
+			population += Long.bitCount(word);
+		}
+		return population;
+	}
+
+	public void clear() {
+		Arrays.fill(words, 0L);
+	}
+
+	public PackedBoard copy() {
+		PackedBoard copy = new PackedBoard(rows, columns);
+		System.arraycopy(words, 0, copy.words, 0, words.length);
+		return copy;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getWordsPerRow() {
+		return wordsPerRow;
+	}
+
+	/**
+	 * @return The backing words of the board, row by row. Changes to the array are
+	 *         reflected in the board.
+	 */
+	public long[] getWords() {
+		return words;
+	}
+
+	private void checkDimensions(int otherRows, int otherColumns) {
+		if (otherRows != rows || otherColumns != columns) {
+			throw new IllegalArgumentException("Board dimensions do not match");
+		}
+	}
+}
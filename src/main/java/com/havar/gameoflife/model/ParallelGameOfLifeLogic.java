@@ -0,0 +1,104 @@
+package com.havar.gameoflife.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.Rule;
+
+/**
+ * Game of Life model that computes each generation in horizontal bands on all
+ * processors. Pays off for large, busy boards, where the work per generation
+ * outweighs handing the bands to the threads.
+ *
+ * Bands are aligned to the lowest level of the {@link DensityPyramid}, so every
+ * thread updates its own block counts. The upper levels are recomputed from the
+ * lowest level once all bands are done.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class ParallelGameOfLifeLogic extends GameOfLifeLogic {
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "parallel-generation");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ParallelGameOfLifeLogic(int rows, int columns) {
+		super(rows, columns);
+	}
+
+	@Override
+	public boolean[][] nextIteration() {
+		int rows = getRows();
+		int columns = getColumns();
+		boolean[][] cells = getCells();
+		boolean[][] next = getNextBuffer();
+		NeighborCountingStrategy strategy = getNeighborCountingStrategy();
+		Rule rule = getRule();
+		DensityPyramid densityPyramid = getDensityPyramid();
+
+		strategy.prepare(cells, rows, columns);
+
+		int blockRows = 1 << DensityPyramid.MIN_LEVEL;
+		int bandRows = Math.max(blockRows, (rows / THREADS + blockRows - 1) / blockRows * blockRows);
+		List<Callable<Void>> bands = new ArrayList<>();
+		for (int start = 0; start < rows; start += bandRows) {
+			int first = start;
+			int last = Math.min(rows, start + bandRows);
+			bands.add(() -> {
+				for (int i = first; i < last; i++) {
+					for (int j = 0; j < columns; j++) {
+						int aliveNeighbors = strategy.countNeighbors(i, j, cells, rows, columns);
+						boolean alive = cells[i][j];
+						boolean nextState = rule.nextState(alive, aliveNeighbors);
+
+						next[i][j] = nextState;
+						if (nextState != alive) {
+							densityPyramid.updateLowestLevel(i, j, nextState);
+						}
+					}
+				}
+				return null;
+			});
+		}
+
+		List<Future<Void>> futures = new ArrayList<>();
+		for (Callable<Void> band : bands) {
+			futures.add(EXECUTOR.submit(band));
+		}
+		awaitAll(futures);
+		densityPyramid.rebuildUpperLevels();
+		return advanceGeneration();
+	}
+
+	/**
+	 * Waits for all bands even if interrupted, so a generation is never left half
+	 * written. The interrupt is passed on once the generation is complete.
+	 */
+	private static void awaitAll(List<Future<Void>> futures) {
+		boolean interrupted = false;
+		for (Future<Void> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Failed to compute a generation", e.getCause());
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.havar.gameoflife.model;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Fills boards with random cells from a seed, so a board can be generated
+ * again from its seed and density alone.
+ *
+ * Cells are generated 64 at a time as the bits of a long. For a density of one
+ * half every random long is a word of cells. Other densities combine several
+ * random longs bit by bit: starting from the lowest set bit of the density as
+ * a binary fraction, each further bit either ors (1) or ands (0) the word with
+ * a new random long, which halves the distance to that bit. The density is
+ * rounded to {@link #PRECISION} bits, so a word never takes more than that many
+ * random longs.
+ *
+ * The board is generated in bands of {@link #BAND_ROWS} rows in parallel. Each
+ * band draws from its own generator, split from the seed in band order, so the
+ * board does not depend on how many threads generated it.
+ *
+ * @author Havar Ameen
+ *
+ */
+public final class RandomBoardGenerator {
+	public static final double DEFAULT_DENSITY = 0.5;
+	static final int BAND_ROWS = 16;
+	private static final int PRECISION = 16;
+
+	private final long seed;
+	private final int threshold; // The density in units of 2^-PRECISION
+
+	/**
+	 * @param seed    The seed, equal seeds give equal boards.
+	 * @param density The share of cells that are alive, between 0 and 1.
+	 */
+	public RandomBoardGenerator(long seed, double density) {
+		if (!(density >= 0 && density <= 1)) {
+			throw new IllegalArgumentException("Density must be between 0 and 1");
+		}
+		this.seed = seed;
+		this.threshold = (int) Math.round(density * (1 << PRECISION));
+	}
+
+	/**
+	 * Replaces all cells of a board.
+	 */
+	public void fill(boolean[][] cells) {
+		int rows = cells.length;
+		int columns = rows == 0 ? 0 : cells[0].length;
+		int wordsPerRow = (columns + 63) >>> 6;
+		SplittableRandom[] bands = splitBands(rows);
+		IntStream.range(0, bands.length).parallel().forEach(band -> {
+			SplittableRandom random = bands[band];
+			int lastRow = Math.min(rows, (band + 1) * BAND_ROWS);
+			for (int i = band * BAND_ROWS; i < lastRow; i++) {
+				boolean[] row = cells[i];
+				for (int w = 0; w < wordsPerRow; w++) {
+					long word = nextWord(random);
+					int start = w << 6;
+					int end = Math.min(start + 64, columns);
+					for (int j = start; j < end; j++) {
+						row[j] = (word >>> j & 1L) != 0;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Replaces all cells of a packed board. Gives the same cells as
+	 * {@link #fill(boolean[][])} for the same seed.
+	 */
+	public void fill(PackedBoard board) {
+		int rows = board.getRows();
+		int wordsPerRow = board.getWordsPerRow();
+		int tail = board.getColumns() & 63;
+		long tailMask = tail == 0 ? -1L : (1L << tail) - 1;
+		long[] words = board.getWords();
+		SplittableRandom[] bands = splitBands(rows);
+		IntStream.range(0, bands.length).parallel().forEach(band -> {
+			SplittableRandom random = bands[band];
+			int lastRow = Math.min(rows, (band + 1) * BAND_ROWS);
+			for (int i = band * BAND_ROWS; i < lastRow; i++) {
+				int offset = i * wordsPerRow;
+				for (int w = 0; w < wordsPerRow; w++) {
+					words[offset + w] = nextWord(random);
+				}
+				words[offset + wordsPerRow - 1] &= tailMask;
+			}
+		});
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return The density the cells are generated with, after rounding.
+	 */
+	public double getDensity() {
+		return (double) threshold / (1 << PRECISION);
+	}
+
+	private SplittableRandom[] splitBands(int rows) {
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] bands = new SplittableRandom[(rows + BAND_ROWS - 1) / BAND_ROWS];
+		for (int band = 0; band < bands.length; band++) {
+			bands[band] = root.split();
+		}
+		return bands;
+	}
+
+	/**
+	 * @return 64 cells, each alive with the probability of the density.
+	 */
+	private long nextWord(SplittableRandom random) {
+		if (threshold == 0) {
+			return 0L;
+		}
+		if (threshold == 1 << PRECISION) {
+			return -1L;
+		}
+		int bit = Integer.numberOfTrailingZeros(threshold);
+		long word = random.nextLong();
+		for (bit++; bit < PRECISION; bit++) {
+			if ((threshold >>> bit & 1) != 0) {
+				word |= random.nextLong();
+			} else {
+				word &= random.nextLong();
+			}
+		}
+		return word;
+	}
+}
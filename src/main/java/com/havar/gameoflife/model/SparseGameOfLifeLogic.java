@@ -0,0 +1,185 @@
+package com.havar.gameoflife.model;
+
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.countstratgegies.RangeNeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.Rule;
+
+/**
+ * Game of Life model that only computes the parts of the board that can
+ * change. Pays off for boards that are mostly empty or settled, such as a few
+ * spaceships or oscillators on a large board.
+ *
+ * The board is divided into tiles of 16x16 cells. A tile can only change if a
+ * cell in it or in one of the eight tiles around it changed in the previous
+ * generation, so all other tiles are skipped. A skipped tile keeps its cells
+ * from the generation before, which is what the reused buffer already holds;
+ * it is only copied when a fresh buffer had to be allocated.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class SparseGameOfLifeLogic extends GameOfLifeLogic {
+	private static final int TILE_SHIFT = 4;
+	private static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+	private int tileRows, tileColumns;
+	private boolean[] changed; // Tiles that changed in the last generation
+	private boolean[] nextChanged;
+	private boolean allChanged = true;
+	private boolean nextHoldsPrevious;
+	private int activeTiles;
+
+	public SparseGameOfLifeLogic(int rows, int columns) {
+		super(rows, columns);
+		allocateTiles();
+	}
+
+	@Override
+	public boolean[][] nextIteration() {
+		int rows = getRows();
+		int columns = getColumns();
+		boolean[][] cells = getCells();
+		boolean[][] next = getNextBuffer();
+		NeighborCountingStrategy strategy = getNeighborCountingStrategy();
+		Rule rule = getRule();
+		DensityPyramid densityPyramid = getDensityPyramid();
+		boolean computeAll = allChanged || !isSupported(strategy);
+
+		strategy.prepare(cells, rows, columns);
+		activeTiles = 0;
+		for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+			for (int tileColumn = 0; tileColumn < tileColumns; tileColumn++) {
+				int tile = tileRow * tileColumns + tileColumn;
+				int firstRow = tileRow << TILE_SHIFT;
+				int lastRow = Math.min(rows, firstRow + TILE_SIZE);
+				int firstColumn = tileColumn << TILE_SHIFT;
+				int lastColumn = Math.min(columns, firstColumn + TILE_SIZE);
+
+				if (!computeAll && !isActive(tileRow, tileColumn)) {
+					if (!nextHoldsPrevious) {
+						for (int i = firstRow; i < lastRow; i++) {
+							System.arraycopy(cells[i], firstColumn, next[i], firstColumn, lastColumn - firstColumn);
+						}
+					}
+					nextChanged[tile] = false;
+					continue;
+				}
+
+				activeTiles++;
+				boolean tileChanged = false;
+				for (int i = firstRow; i < lastRow; i++) {
+					for (int j = firstColumn; j < lastColumn; j++) {
+						int aliveNeighbors = strategy.countNeighbors(i, j, cells, rows, columns);
+						boolean alive = cells[i][j];
+						boolean nextState = rule.nextState(alive, aliveNeighbors);
+
+						next[i][j] = nextState;
+						if (nextState != alive) {
+							densityPyramid.update(i, j, nextState);
+							tileChanged = true;
+						}
+					}
+				}
+				nextChanged[tile] = tileChanged;
+			}
+		}
+
+		boolean[] swap = changed;
+		changed = nextChanged;
+		nextChanged = swap;
+		allChanged = false;
+
+		boolean[][] result = advanceGeneration();
+		nextHoldsPrevious = getNextBuffer() == cells;
+		return result;
+	}
+
+	/**
+	 * @return The share of tiles computed in the last generation, between 0 and 1.
+	 */
+	public double getActiveFraction() {
+		return (double) activeTiles / (tileRows * tileColumns);
+	}
+
+	@Override
+	public void setCellState(int i, int j, boolean b) {
+		super.setCellState(i, j, b);
+		changed[(i >> TILE_SHIFT) * tileColumns + (j >> TILE_SHIFT)] = true;
+	}
+
+	@Override
+	public void generateRandomBoard(long seed, double density) {
+		super.generateRandomBoard(seed, density);
+		allChanged = true;
+	}
+
+	@Override
+	public void clearBoard() {
+		super.clearBoard();
+		allChanged = true;
+	}
+
+	@Override
+	public void resizeGrid(int size) {
+		super.resizeGrid(size);
+		allocateTiles();
+	}
+
+	@Override
+	public void setCells(boolean[][] cells) {
+		super.setCells(cells);
+		allChanged = true;
+	}
+
+	@Override
+	public void restore(BoardSnapshot snapshot) {
+		super.restore(snapshot);
+		allocateTiles();
+	}
+
+	@Override
+	public void setNeighborCountingStrategy(NeighborCountingStrategy neighborCountingStrategy) {
+		super.setNeighborCountingStrategy(neighborCountingStrategy);
+		allChanged = true;
+	}
+
+	@Override
+	public void setRule(Rule rule) {
+		super.setRule(rule);
+		allChanged = true;
+	}
+
+	/**
+	 * Tiles only look at the tiles right next to them, so neighbourhoods reaching
+	 * further than a tile are always computed in full.
+	 */
+	static boolean isSupported(NeighborCountingStrategy strategy) {
+		return !(strategy instanceof RangeNeighborCountingStrategy)
+				|| ((RangeNeighborCountingStrategy) strategy).getRange() <= TILE_SIZE;
+	}
+
+	/**
+	 * @return True if the tile or one of its neighbours changed. Neighbours wrap
+	 *         around at the edges, which is only ever more work than needed.
+	 */
+	private boolean isActive(int tileRow, int tileColumn) {
+		for (int a = -1; a <= 1; a++) {
+			int row = Math.floorMod(tileRow + a, tileRows);
+			for (int b = -1; b <= 1; b++) {
+				if (changed[row * tileColumns + Math.floorMod(tileColumn + b, tileColumns)]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void allocateTiles() {
+		tileRows = (getRows() + TILE_SIZE - 1) >> TILE_SHIFT;
+		tileColumns = (getColumns() + TILE_SIZE - 1) >> TILE_SHIFT;
+		changed = new boolean[tileRows * tileColumns];
+		nextChanged = new boolean[tileRows * tileColumns];
+		allChanged = true;
+		nextHoldsPrevious = false;
+	}
+}
@@ -0,0 +1,158 @@
+package com.havar.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache from the contents of an 18x18 tile to the next generation of
+ * its 16x16 centre, used by {@link TileMemoGameOfLifeLogic}.
+ *
+ * Keys are {@link #KEY_WORDS} longs and results {@link #RESULT_WORDS} longs,
+ * stored in flat arrays so the cache does not create an object per entry. The
+ * cache is four-way set associative: a key can only be in the four entries of
+ * the set its hash points to, and when the set is full the CLOCK algorithm
+ * picks the entry to replace, skipping entries that were used since the hand
+ * last passed them.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class TileCache {
+	public static final int KEY_WORDS = 6;
+	public static final int RESULT_WORDS = 4;
+	private static final int WAYS = 4;
+
+	private final int sets;
+	private final long[] keys;
+	private final long[] results;
+	private final boolean[] valid;
+	private final boolean[] referenced;
+	private final byte[] hands;
+
+	private long hits, misses, evictions;
+
+	/**
+	 * @param capacity The amount of entries, rounded up to a power of two.
+	 */
+	public TileCache(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		int entries = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+		this.sets = entries / WAYS;
+		this.keys = new long[entries * KEY_WORDS];
+		this.results = new long[entries * RESULT_WORDS];
+		this.valid = new boolean[entries];
+		this.referenced = new boolean[entries];
+		this.hands = new byte[sets];
+	}
+
+	/**
+	 * Looks up the result for a key.
+	 *
+	 * @param key    The key, {@link #KEY_WORDS} longs.
+	 * @param result Receives the result, {@link #RESULT_WORDS} longs.
+	 * @return True if the key was found.
+	 */
+	public boolean lookup(long[] key, long[] result) {
+		int first = set(key) * WAYS;
+		for (int entry = first; entry < first + WAYS; entry++) {
+			if (valid[entry] && matches(entry, key)) {
+				referenced[entry] = true;
+				System.arraycopy(results, entry * RESULT_WORDS, result, 0, RESULT_WORDS);
+				hits++;
+				return true;
+			}
+		}
+		misses++;
+		return false;
+	}
+
+	/**
+	 * Adds a result, replacing an entry of the same set if needed. Must only be
+	 * called for keys that {@link #lookup} did not find.
+	 */
+	public void store(long[] key, long[] result) {
+		int set = set(key);
+		int first = set * WAYS;
+		int entry = -1;
+		for (int way = 0; way < WAYS; way++) {
+			if (!valid[first + way]) {
+				entry = first + way;
+				break;
+			}
+		}
+		if (entry < 0) {
+			// Advance the hand past recently used entries, giving each a second chance.
+			int hand = hands[set];
+			while (referenced[first + hand]) {
+				referenced[first + hand] = false;
+				hand = (hand + 1) % WAYS;
+			}
+			entry = first + hand;
+			hands[set] = (byte) ((hand + 1) % WAYS);
+			evictions++;
+		}
+		System.arraycopy(key, 0, keys, entry * KEY_WORDS, KEY_WORDS);
+		System.arraycopy(result, 0, results, entry * RESULT_WORDS, RESULT_WORDS);
+		valid[entry] = true;
+		referenced[entry] = false;
+	}
+
+	/**
+	 * Removes all entries, for example when the rule changes. The statistics are
+	 * kept.
+	 */
+	public void clear() {
+		Arrays.fill(valid, false);
+		Arrays.fill(referenced, false);
+	}
+
+	public int getCapacity() {
+		return valid.length;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return The share of lookups that found their key, between 0 and 1.
+	 */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	public void resetStatistics() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	private boolean matches(int entry, long[] key) {
+		int offset = entry * KEY_WORDS;
+		for (int i = 0; i < KEY_WORDS; i++) {
+			if (keys[offset + i] != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int set(long[] key) {
+		long hash = 0;
+		for (long word : key) {
+			hash = (hash ^ word) * 0x9e3779b97f4a7c15L;
+			hash ^= hash >>> 29;
+		}
+		return (int) (hash >>> 32) & (sets - 1);
+	}
+}
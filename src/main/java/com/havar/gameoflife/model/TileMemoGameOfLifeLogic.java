@@ -0,0 +1,239 @@
+package com.havar.gameoflife.model;
+
+import java.util.Arrays;
+
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithBordersStrategy;
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithWrapAroundStrategy;
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.Rule;
+
+/**
+ * Game of Life model that remembers how tiles of the board evolve. Pays off for
+ * boards that repeat the same local patterns, such as still lifes, oscillators
+ * and regular tilings, which are then stepped mostly by looking results up.
+ *
+ * The board is divided into tiles of 16x16 cells. The next generation of a
+ * tile only depends on the tile and the ring of cells around it, so the 18x18
+ * cells are used as key into a {@link TileCache} that holds the next 16x16
+ * cells. Only tiles that miss the cache are computed. Empty tiles are not
+ * looked up at all when the rule does not create cells out of nothing.
+ *
+ * The ring around the board is filled in according to the neighbour counting
+ * strategy, so the same cached tile serves boards with and without wrap
+ * around. Only the strategies with the eight adjacent cells as neighbourhood
+ * are supported, other strategies are computed like {@link GameOfLifeLogic}.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class TileMemoGameOfLifeLogic extends GameOfLifeLogic {
+	public static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
+
+	private static final int TILE_SHIFT = 4;
+	private static final int TILE_SIZE = 1 << TILE_SHIFT;
+	private static final int HALO_SIZE = TILE_SIZE + 2;
+	private static final int HALO_MASK = (1 << HALO_SIZE) - 1;
+	private static final int TILE_MASK = (1 << TILE_SIZE) - 1;
+
+	private final TileCache cache;
+	private final boolean[][] ruleTable = new boolean[2][9];
+
+	// The board with a ring of one cell around it, one bit per cell.
+	private long[] padded = new long[0];
+	private int paddedWordsPerRow;
+	private int tileRows, tileColumns;
+
+	private final int[] haloRows = new int[HALO_SIZE];
+	private final long[] key = new long[TileCache.KEY_WORDS];
+	private final long[] result = new long[TileCache.RESULT_WORDS];
+	private long emptyTiles;
+
+	public TileMemoGameOfLifeLogic(int rows, int columns) {
+		this(rows, columns, DEFAULT_CACHE_CAPACITY);
+	}
+
+	/**
+	 * @param cacheCapacity The amount of tiles the cache holds.
+	 */
+	public TileMemoGameOfLifeLogic(int rows, int columns, int cacheCapacity) {
+		super(rows, columns);
+		this.cache = new TileCache(cacheCapacity);
+		updateRuleTable();
+	}
+
+	@Override
+	public boolean[][] nextIteration() {
+		if (!isSupported(getNeighborCountingStrategy())) {
+			return super.nextIteration();
+		}
+		int rows = getRows();
+		int columns = getColumns();
+		boolean[][] cells = getCells();
+		boolean[][] next = getNextBuffer();
+		DensityPyramid densityPyramid = getDensityPyramid();
+		pack(cells, rows, columns, getNeighborCountingStrategy() instanceof CountNeighborsWithWrapAroundStrategy);
+
+		boolean emptyStaysEmpty = !ruleTable[0][0];
+		for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+			int firstRow = tileRow << TILE_SHIFT;
+			int lastRow = Math.min(rows, firstRow + TILE_SIZE);
+			for (int tileColumn = 0; tileColumn < tileColumns; tileColumn++) {
+				int firstColumn = tileColumn << TILE_SHIFT;
+				int width = Math.min(columns, firstColumn + TILE_SIZE) - firstColumn;
+
+				boolean empty = readTile(tileRow, tileColumn);
+				if (empty && emptyStaysEmpty) {
+					emptyTiles++;
+					Arrays.fill(result, 0);
+				} else if (!cache.lookup(key, result)) {
+					computeTile();
+					cache.store(key, result);
+				}
+
+				for (int i = firstRow; i < lastRow; i++) {
+					int r = i - firstRow;
+					System.arraycopy(cells[i], firstColumn, next[i], firstColumn, width);
+					int centre = haloRows[r + 1] >>> 1 & TILE_MASK;
+					int nextRow = (int) (result[r >>> 2] >>> ((r & 3) << 4)) & TILE_MASK;
+					int diff = (centre ^ nextRow) & ((1 << width) - 1);
+					while (diff != 0) {
+						int j = firstColumn + Integer.numberOfTrailingZeros(diff);
+						boolean alive = !cells[i][j];
+						next[i][j] = alive;
+						densityPyramid.update(i, j, alive);
+						diff &= diff - 1;
+					}
+				}
+			}
+		}
+		return advanceGeneration();
+	}
+
+	/**
+	 * @return The cache of tile results, with its hit rate.
+	 */
+	public TileCache getTileCache() {
+		return cache;
+	}
+
+	/**
+	 * @return The amount of empty tiles that were skipped without a lookup.
+	 */
+	public long getEmptyTiles() {
+		return emptyTiles;
+	}
+
+	@Override
+	public void setRule(Rule rule) {
+		super.setRule(rule);
+		updateRuleTable();
+		cache.clear();
+	}
+
+	/**
+	 * Tiles only carry a ring of one cell, so larger neighbourhoods and unknown
+	 * strategies are not supported.
+	 */
+	static boolean isSupported(NeighborCountingStrategy strategy) {
+		return strategy instanceof CountNeighborsWithBordersStrategy
+				|| strategy instanceof CountNeighborsWithWrapAroundStrategy;
+	}
+
+	/**
+	 * Packs the board into rows of bits, shifted by one to make room for the ring
+	 * around it. Cells past the board in the last tiles stay dead, their results
+	 * are never used.
+	 */
+	private void pack(boolean[][] cells, int rows, int columns, boolean wrapAround) {
+		tileRows = (rows + TILE_SIZE - 1) >> TILE_SHIFT;
+		tileColumns = (columns + TILE_SIZE - 1) >> TILE_SHIFT;
+		// One spare word per row, so a halo can always be read from two words.
+		paddedWordsPerRow = ((tileColumns << TILE_SHIFT) + 2 + 63 >>> 6) + 1;
+		int size = ((tileRows << TILE_SHIFT) + 2) * paddedWordsPerRow;
+		if (padded.length != size) {
+			padded = new long[size];
+		} else {
+			Arrays.fill(padded, 0);
+		}
+
+		for (int i = -1; i <= rows; i++) {
+			int row = i;
+			if (row < 0 || row == rows) {
+				if (!wrapAround) {
+					continue;
+				}
+				row = Math.floorMod(row, rows);
+			}
+			boolean[] source = cells[row];
+			int offset = (i + 1) * paddedWordsPerRow;
+			for (int j = 0; j < columns; j++) {
+				if (source[j]) {
+					int bit = j + 1;
+					padded[offset + (bit >>> 6)] |= 1L << bit;
+				}
+			}
+			if (wrapAround) {
+				if (source[columns - 1]) {
+					padded[offset] |= 1L;
+				}
+				if (source[0]) {
+					padded[offset + (columns + 1 >>> 6)] |= 1L << columns + 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the 18x18 cells of a tile and its ring into {@link #haloRows} and
+	 * {@link #key}.
+	 *
+	 * @return True if all cells are dead.
+	 */
+	private boolean readTile(int tileRow, int tileColumn) {
+		int bit = tileColumn << TILE_SHIFT;
+		int word = bit >>> 6;
+		int shift = bit & 63;
+		Arrays.fill(key, 0);
+		boolean empty = true;
+		for (int r = 0; r < HALO_SIZE; r++) {
+			int offset = ((tileRow << TILE_SHIFT) + r) * paddedWordsPerRow + word;
+			long bits = padded[offset] >>> shift;
+			if (shift > 64 - HALO_SIZE) {
+				bits |= padded[offset + 1] << 64 - shift;
+			}
+			int row = (int) bits & HALO_MASK;
+			haloRows[r] = row;
+			key[r / 3] |= (long) row << HALO_SIZE * (r % 3);
+			empty &= row == 0;
+		}
+		return empty;
+	}
+
+	/**
+	 * Computes the next generation of the centre of {@link #haloRows} into
+	 * {@link #result}.
+	 */
+	private void computeTile() {
+		Arrays.fill(result, 0);
+		for (int r = 1; r <= TILE_SIZE; r++) {
+			int above = haloRows[r - 1], row = haloRows[r], below = haloRows[r + 1];
+			long nextRow = 0;
+			for (int c = 1; c <= TILE_SIZE; c++) {
+				int window = 0b111 << c - 1;
+				int neighbors = Integer.bitCount(above & window) + Integer.bitCount(below & window)
+						+ Integer.bitCount(row & window & ~(1 << c));
+				if (ruleTable[row >>> c & 1][neighbors]) {
+					nextRow |= 1L << c - 1;
+				}
+			}
+			result[r - 1 >>> 2] |= nextRow << (r - 1 & 3) * TILE_SIZE;
+		}
+	}
+
+	private void updateRuleTable() {
+		for (int neighbors = 0; neighbors <= 8; neighbors++) {
+			ruleTable[0][neighbors] = getRule().nextState(false, neighbors);
+			ruleTable[1][neighbors] = getRule().nextState(true, neighbors);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package com.havar.gameoflife.model.batch;
+
+import com.havar.gameoflife.model.BitParallelLife;
+
+/**
+ * Steps 64 independent boards of the same size at once, for sweeps over many
+ * small boards.
+ *
+ * The boards are stored bit-sliced: there is one long per cell position, and
+ * bit {@code lane} of that long is the cell of board {@code lane}. The eight
+ * neighbours of a cell are then simply the words of the eight neighbouring
+ * positions, so a whole generation of all 64 boards is one
+ * {@link BitParallelLife#next} call per cell position, with no shifting and no
+ * per-board loops.
+ *
+ * After every step the batch knows which lanes did not change (still lifes and
+ * empty boards) and which lanes repeat with period two (blinkers and the like).
+ * A typical sweep loads a board into every lane, steps until lanes settle, reads
+ * out the settled lanes and loads new boards into them:
+ *
+ * <pre>
+ * while (...) {
+ * 	batch.step();
+ * 	long finished = batch.getStableLanes();
+ * 	while (finished != 0) {
+ * 		int lane = Long.numberOfTrailingZeros(finished);
+ * 		finished &= finished - 1;
+ * 		record(batch.extract(lane), batch.getLaneGeneration(lane));
+ * 		batch.load(lane, nextBoard());
+ * 	}
+ * }
+ * </pre>
+ *
+ * @author Havar Ameen
+ *
+ */
+public class BitSlicedBatch {
+	public static final int LANES = Long.SIZE;
+
+	private final int rows, columns;
+	private final boolean wrapAround;
+	private final int stride;
+
+	// Each buffer has a border of one position around the board, so no lookup
+	// needs a bounds check. The border is dead, or a copy of the opposite edge.
+	private long[] current, previous, next;
+
+	private long loadedLanes;
+	private long stableLanes;
+	private long steps;
+	private final long[] loadedAt = new long[LANES];
+
+	public BitSlicedBatch(int rows, int columns, boolean wrapAround) {
+		if (rows <= 0 || columns <= 0) {
+			throw new IllegalArgumentException("The board size needs to be positive.");
+		}
+		this.rows = rows;
+		this.columns = columns;
+		this.wrapAround = wrapAround;
+		this.stride = columns + 2;
+		this.current = new long[(rows + 2) * stride];
+		this.previous = new long[current.length];
+		this.next = new long[current.length];
+	}
+
+	/**
+	 * Loads a board into a lane, replacing the board that was there.
+	 *
+	 * @param lane  The lane, between 0 and 63.
+	 * @param cells The board, of the size of this batch.
+	 */
+	public void load(int lane, boolean[][] cells) {
+		checkLane(lane);
+		if (cells.length != rows || cells[0].length != columns) {
+			throw new IllegalArgumentException("The board must be " + rows + "x" + columns);
+		}
+		long bit = 1L << lane;
+		for (int i = 0; i < rows; i++) {
+			int offset = (i + 1) * stride + 1;
+			for (int j = 0; j < columns; j++) {
+				if (cells[i][j]) {
+					current[offset + j] |= bit;
+				} else {
+					current[offset + j] &= ~bit;
+				}
+			}
+		}
+		loadedLanes |= bit;
+		stableLanes &= ~bit;
+		loadedAt[lane] = steps;
+	}
+
+	/**
+	 * Empties a lane. Empty lanes are still stepped, but never reported as stable.
+	 */
+	public void unload(int lane) {
+		checkLane(lane);
+		long bit = ~(1L << lane);
+		for (int i = 0; i < current.length; i++) {
+			current[i] &= bit;
+		}
+		loadedLanes &= bit;
+		stableLanes &= bit;
+	}
+
+	/**
+	 * Reads the current board of a lane.
+	 */
+	public boolean[][] extract(int lane) {
+		checkLane(lane);
+		boolean[][] cells = new boolean[rows][columns];
+		for (int i = 0; i < rows; i++) {
+			int offset = (i + 1) * stride + 1;
+			for (int j = 0; j < columns; j++) {
+				cells[i][j] = (current[offset + j] >>> lane & 1L) != 0;
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * @return The amount of live cells in a lane.
+	 */
+	public int getPopulation(int lane) {
+		checkLane(lane);
+		int population = 0;
+		for (int i = 0; i < rows; i++) {
+			int offset = (i + 1) * stride + 1;
+			for (int j = 0; j < columns; j++) {
+				population += (int) (current[offset + j] >>> lane & 1L);
+			}
+		}
+		return population;
+	}
+
+	/**
+	 * Computes the next generation of all lanes.
+	 */
+	public void step() {
+		if (wrapAround) {
+			fillBorder(current);
+		}
+
+		long changed = 0L;
+		long changedFromPrevious = 0L;
+		for (int i = 1; i <= rows; i++) {
+			int offset = i * stride;
+			for (int j = 1; j <= columns; j++) {
+				int index = offset + j;
+				int up = index - stride;
+				int down = index + stride;
+				long cell = current[index];
+				long result = BitParallelLife.next(cell, current[up - 1], current[up], current[up + 1],
+						current[index - 1], current[index + 1], current[down - 1], current[down], current[down + 1]);
+				next[index] = result;
+				changed |= result ^ cell;
+				changedFromPrevious |= result ^ previous[index];
+			}
+		}
+
+		long[] swap = previous;
+		previous = current;
+		current = next;
+		next = swap;
+		steps++;
+
+		long oneStep = 0L;
+		long twoSteps = 0L;
+		for (int lane = 0; lane < LANES; lane++) {
+			long age = steps - loadedAt[lane];
+			if (age >= 1) {
+				oneStep |= 1L << lane;
+			}
+			if (age >= 2) {
+				twoSteps |= 1L << lane;
+			}
+		}
+		stableLanes = ((~changed & oneStep) | (~changedFromPrevious & twoSteps)) & loadedLanes;
+	}
+
+	/**
+	 * Computes the given amount of generations of all lanes.
+	 */
+	public void step(int generations) {
+		for (int i = 0; i < generations; i++) {
+			step();
+		}
+	}
+
+	/**
+	 * @return A bit set for each loaded lane that did not change in the last step,
+	 *         or that is back to the board of two steps ago.
+	 */
+	public long getStableLanes() {
+		return stableLanes;
+	}
+
+	/**
+	 * @return A bit set for each lane that holds a board.
+	 */
+	public long getLoadedLanes() {
+		return loadedLanes;
+	}
+
+	/**
+	 * @return The amount of generations the lane has been stepped since its board
+	 *         was loaded.
+	 */
+	public long getLaneGeneration(int lane) {
+		checkLane(lane);
+		return steps - loadedAt[lane];
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Copies the edges of the board into the border on the opposite side.
+	 */
+	private void fillBorder(long[] words) {
+		for (int i = 1; i <= rows; i++) {
+			int offset = i * stride;
+			words[offset] = words[offset + columns];
+			words[offset + columns + 1] = words[offset + 1];
+		}
+		System.arraycopy(words, rows * stride, words, 0, stride);
+		System.arraycopy(words, stride, words, (rows + 1) * stride, stride);
+	}
+
+	private static void checkLane(int lane) {
+		if (lane < 0 || lane >= LANES) {
+			throw new IllegalArgumentException("Lane must be between 0 and " + (LANES - 1));
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.havar.gameoflife.model.census;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a census: how many objects of each kind were found on the
+ * board.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class CensusResult {
+	private final long generation;
+	private final int objectCount;
+	private final Map<String, Integer> counts;
+
+	CensusResult(long generation, Map<String, Integer> counts) {
+		this.generation = generation;
+		List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+		entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+		Map<String, Integer> sorted = new LinkedHashMap<>();
+		int total = 0;
+		for (Map.Entry<String, Integer> entry : entries) {
+			sorted.put(entry.getKey(), entry.getValue());
+			total += entry.getValue();
+		}
+		this.counts = Collections.unmodifiableMap(sorted);
+		this.objectCount = total;
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return The total amount of objects, including unknown ones.
+	 */
+	public int getObjectCount() {
+		return objectCount;
+	}
+
+	/**
+	 * @param name The name of the object, for example "block".
+	 * @return The amount of objects with that name.
+	 */
+	public int getCount(String name) {
+		return counts.getOrDefault(name, 0);
+	}
+
+	/**
+	 * @return The counts per object name, most common first.
+	 */
+	public Map<String, Integer> getCounts() {
+		return counts;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+			if (builder.length() > 0) {
+				builder.append(", ");
+			}
+			builder.append(entry.getKey()).append(' ').append(entry.getValue());
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,102 @@
+package com.havar.gameoflife.model.census;
+
+import java.util.Arrays;
+
+/**
+ * The cells of a single object cropped to its bounding box, one long per row.
+ * Objects wider or taller than 64 cells are not represented.
+ *
+ * @author Havar Ameen
+ *
+ */
+final class ObjectShape implements Comparable<ObjectShape> {
+	static final int MAX_SIZE = 64;
+
+	private final int width, height;
+	private final long[] rows;
+	private final int hash;
+
+	ObjectShape(int width, int height, long[] rows) {
+		this.width = width;
+		this.height = height;
+		this.rows = rows;
+		this.hash = 31 * (31 * width + height) + Arrays.hashCode(rows);
+	}
+
+	boolean get(int row, int col) {
+		return (rows[row] & (1L << col)) != 0;
+	}
+
+	/**
+	 * Returns the smallest of the eight rotations and reflections of this shape,
+	 * so every orientation of an object maps to the same key.
+	 */
+	ObjectShape canonical() {
+		ObjectShape best = this;
+		for (int transform = 1; transform < 8; transform++) {
+			ObjectShape candidate = transform(transform);
+			if (candidate.compareTo(best) < 0) {
+				best = candidate;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @param transform Bit 0 mirrors the columns, bit 1 mirrors the rows and bit 2
+	 *                  transposes the shape.
+	 */
+	private ObjectShape transform(int transform) {
+		boolean transpose = (transform & 4) != 0;
+		int newHeight = transpose ? width : height;
+		int newWidth = transpose ? height : width;
+		long[] newRows = new long[newHeight];
+		for (int i = 0; i < height; i++) {
+			for (int j = 0; j < width; j++) {
+				if (get(i, j)) {
+					int r = (transform & 2) != 0 ? height - 1 - i : i;
+					int c = (transform & 1) != 0 ? width - 1 - j : j;
+					if (transpose) {
+						newRows[c] |= 1L << r;
+					} else {
+						newRows[r] |= 1L << c;
+					}
+				}
+			}
+		}
+		return new ObjectShape(newWidth, newHeight, newRows);
+	}
+
+	@Override
+	public int compareTo(ObjectShape other) {
+		if (height != other.height) {
+			return Integer.compare(height, other.height);
+		}
+		if (width != other.width) {
+			return Integer.compare(width, other.width);
+		}
+		for (int i = 0; i < rows.length; i++) {
+			if (rows[i] != other.rows[i]) {
+				return Long.compareUnsigned(rows[i], other.rows[i]);
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ObjectShape)) {
+			return false;
+		}
+		ObjectShape other = (ObjectShape) obj;
+		return width == other.width && height == other.height && Arrays.equals(rows, other.rows);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
@@ -0,0 +1,312 @@
+package com.havar.gameoflife.model.census;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import com.havar.gameoflife.model.PackedBoard;
+
+/**
+ * Splits a board into objects and counts how many of each kind there are, in
+ * the spirit of the soup census of apgsearch.
+ *
+ * An object is a group of live cells where each cell is at most two rows and
+ * two columns away from another cell of the group. Plain 8-connectivity is not
+ * enough, as some phases of spaceships such as the lightweight spaceship have a
+ * cell that is only separated from the rest by a dead cell. Groups are found
+ * with union-find over the runs of live cells in each bit-packed row, so the work depends on the amount of runs rather than on
+ * the board size. Each group is cropped to its bounding box and looked up in a
+ * cache of shapes seen before. Shapes missing from the cache are reduced to a
+ * canonical orientation and compared to a table of known objects, which holds
+ * every phase and orientation of the common still lifes, oscillators and
+ * spaceships.
+ *
+ * Objects that come within two cells of each other, such as a glider crashing
+ * into a block, are counted as a single unknown object.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class PatternCensus {
+	public static final String UNKNOWN = "unknown";
+
+	private static final int CACHE_SIZE = 4096;
+	private static final Map<ObjectShape, String> KNOWN_OBJECTS = new HashMap<>();
+
+	static {
+		addKnownObject("block", 1, "XX", "XX");
+		addKnownObject("beehive", 1, ".XX.", "X..X", ".XX.");
+		addKnownObject("loaf", 1, ".XX.", "X..X", ".X.X", "..X.");
+		addKnownObject("boat", 1, "XX.", "X.X", ".X.");
+		addKnownObject("ship", 1, "XX.", "X.X", ".XX");
+		addKnownObject("tub", 1, ".X.", "X.X", ".X.");
+		addKnownObject("pond", 1, ".XX.", "X..X", "X..X", ".XX.");
+		addKnownObject("blinker", 2, "XXX");
+		addKnownObject("glider", 4, ".X.", "..X", "XXX");
+		addKnownObject("lwss", 4, ".X..X", "X....", "X...X", "XXXX.");
+	}
+
+	private final Map<ObjectShape, String> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ObjectShape, String> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "pattern-census");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Runs a census of the given generation on a background thread. The snapshot
+	 * is retained until the census has read it.
+	 *
+	 * @param snapshot The generation to analyse.
+	 * @return The result, completed on the census thread.
+	 */
+	public CompletableFuture<CensusResult> submit(BoardSnapshot snapshot) {
+		snapshot.retain();
+		return CompletableFuture.supplyAsync(() -> {
+			PackedBoard board;
+			try {
+				board = PackedBoard.of(snapshot);
+			} finally {
+				snapshot.release();
+			}
+			return classify(board, snapshot.getGeneration());
+		}, executor);
+	}
+
+	/**
+	 * Runs a census of the given board on the calling thread.
+	 *
+	 * @param board      The board to analyse.
+	 * @param generation The generation number to put on the result.
+	 * @return The counts per object.
+	 */
+	public synchronized CensusResult classify(PackedBoard board, long generation) {
+		Map<String, Integer> counts = new HashMap<>();
+		for (ObjectShape shape : findObjects(board)) {
+			String name = shape == null ? UNKNOWN : identify(shape);
+			counts.merge(name, 1, Integer::sum);
+		}
+		return new CensusResult(generation, counts);
+	}
+
+	private String identify(ObjectShape shape) {
+		String name = cache.get(shape);
+		if (name == null) {
+			name = KNOWN_OBJECTS.getOrDefault(shape.canonical(), UNKNOWN);
+			cache.put(shape, name);
+		}
+		return name;
+	}
+
+	/**
+	 * Finds the groups of live cells on the board.
+	 *
+	 * @return One shape per group, or null for groups larger than
+	 *         {@link ObjectShape#MAX_SIZE}.
+	 */
+	static List<ObjectShape> findObjects(PackedBoard board) {
+		Runs runs = new Runs();
+		long[] words = board.getWords();
+		int wordsPerRow = board.getWordsPerRow();
+
+		// The runs of the two rows above, which are all runs from twoAbove on.
+		int twoAbove = 0, oneAbove = 0;
+		for (int row = 0; row < board.getRows(); row++) {
+			int offset = row * wordsPerRow;
+			int currentStart = runs.size;
+			int p = twoAbove, q = oneAbove;
+			int col = nextSetBit(words, offset, wordsPerRow, 0);
+			while (col >= 0) {
+				int end = nextClearBit(words, offset, wordsPerRow, col) - 1;
+				int run = runs.add(row, col, end);
+
+				// A run is in the same group as the runs of this row and the two rows
+				// above that come within two columns of it.
+				if (run > currentStart && runs.end[run - 1] >= col - 2) {
+					runs.union(run - 1, run);
+				}
+				p = unionNearby(runs, p, oneAbove, run);
+				q = unionNearby(runs, q, currentStart, run);
+				col = nextSetBit(words, offset, wordsPerRow, end + 1);
+			}
+			twoAbove = oneAbove;
+			oneAbove = currentStart;
+		}
+
+		return runs.collectShapes();
+	}
+
+	/**
+	 * Joins a run with the runs of an earlier row that come within two columns
+	 * of it.
+	 *
+	 * @param from The first run of the earlier row that may still be near.
+	 * @param to   The end of the runs of the earlier row.
+	 * @return The first run that may be near the next run of the current row.
+	 */
+	private static int unionNearby(Runs runs, int from, int to, int run) {
+		while (from < to && runs.end[from] < runs.start[run] - 2) {
+			from++;
+		}
+		for (int other = from; other < to && runs.start[other] <= runs.end[run] + 2; other++) {
+			runs.union(other, run);
+		}
+		return from;
+	}
+
+	private static int nextSetBit(long[] words, int offset, int wordsPerRow, int from) {
+		int w = from >>> 6;
+		if (w >= wordsPerRow) {
+			return -1;
+		}
+		long word = words[offset + w] & (-1L << from);
+		while (word == 0) {
+			if (++w == wordsPerRow) {
+				return -1;
+			}
+			word = words[offset + w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	private static int nextClearBit(long[] words, int offset, int wordsPerRow, int from) {
+		int w = from >>> 6;
+		long word = ~words[offset + w] & (-1L << from);
+		while (word == 0) {
+			if (++w == wordsPerRow) {
+				return wordsPerRow << 6;
+			}
+			word = ~words[offset + w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Adds every phase of an object, in every orientation, to the table of known
+	 * objects.
+	 *
+	 * @throws IllegalStateException If a phase is not found as a single object.
+	 */
+	private static void addKnownObject(String name, int period, String... pattern) {
+		int size = Math.max(pattern.length, pattern[0].length()) + 10;
+		GameOfLifeLogic logic = new GameOfLifeLogic(size, size);
+		for (int i = 0; i < pattern.length; i++) {
+			for (int j = 0; j < pattern[i].length(); j++) {
+				logic.setCellState(i + 5, j + 5, pattern[i].charAt(j) == 'X');
+			}
+		}
+		for (int phase = 0; phase < period; phase++) {
+			List<ObjectShape> shapes = findObjects(PackedBoard.of(logic.getCells()));
+			if (shapes.size() != 1) {
+				throw new IllegalStateException("Phase " + phase + " of " + name + " is found as " + shapes.size()
+						+ " objects");
+			}
+			KNOWN_OBJECTS.put(shapes.get(0).canonical(), name);
+			logic.nextIteration();
+		}
+	}
+
+	/**
+	 * Growable table of runs of live cells with a union-find forest over them.
+	 */
+	private static final class Runs {
+		private int size;
+		private int[] row = new int[256];
+		private int[] start = new int[256];
+		private int[] end = new int[256];
+		private int[] parent = new int[256];
+
+		private int add(int r, int s, int e) {
+			if (size == row.length) {
+				int capacity = size * 2;
+				row = Arrays.copyOf(row, capacity);
+				start = Arrays.copyOf(start, capacity);
+				end = Arrays.copyOf(end, capacity);
+				parent = Arrays.copyOf(parent, capacity);
+			}
+			row[size] = r;
+			start[size] = s;
+			end[size] = e;
+			parent[size] = size;
+			return size++;
+		}
+
+		private int find(int run) {
+			while (parent[run] != run) {
+				parent[run] = parent[parent[run]];
+				run = parent[run];
+			}
+			return run;
+		}
+
+		private void union(int a, int b) {
+			int rootA = find(a);
+			int rootB = find(b);
+			if (rootA != rootB) {
+				// Keep the older run as the root so groups are numbered top to bottom.
+				parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+			}
+		}
+
+		private List<ObjectShape> collectShapes() {
+			int[] group = new int[size];
+			Arrays.fill(group, -1);
+			int groups = 0;
+			int[] minRow = new int[size], maxRow = new int[size], minCol = new int[size], maxCol = new int[size];
+			for (int i = 0; i < size; i++) {
+				int root = find(i);
+				if (group[root] < 0) {
+					group[root] = groups;
+					minRow[groups] = row[i];
+					minCol[groups] = start[i];
+					maxCol[groups] = end[i];
+					groups++;
+				}
+				int g = group[root];
+				maxRow[g] = row[i];
+				minCol[g] = Math.min(minCol[g], start[i]);
+				maxCol[g] = Math.max(maxCol[g], end[i]);
+			}
+
+			long[][] bits = new long[groups][];
+			for (int g = 0; g < groups; g++) {
+				int height = maxRow[g] - minRow[g] + 1;
+				int width = maxCol[g] - minCol[g] + 1;
+				if (height <= ObjectShape.MAX_SIZE && width <= ObjectShape.MAX_SIZE) {
+					bits[g] = new long[height];
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				int g = group[find(i)];
+				if (bits[g] != null) {
+					int length = end[i] - start[i] + 1;
+					long mask = length == 64 ? -1L : (1L << length) - 1;
+					bits[g][row[i] - minRow[g]] |= mask << (start[i] - minCol[g]);
+				}
+			}
+
+			List<ObjectShape> shapes = new ArrayList<>(groups);
+			for (int g = 0; g < groups; g++) {
+				shapes.add(bits[g] == null ? null
+						: new ObjectShape(maxCol[g] - minCol[g] + 1, maxRow[g] - minRow[g] + 1, bits[g]));
+			}
+			return shapes;
+		}
+	}
+}
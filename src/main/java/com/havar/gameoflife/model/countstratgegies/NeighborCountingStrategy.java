@@ -2,4 +2,11 @@ package com.havar.gameoflife.model.countstratgegies;
 
 public interface NeighborCountingStrategy {
     int countNeighbors(int rowPosition, int colPosition, boolean[][] cells, int rows, int columns);
+
+    /**
+     * Called once per generation before any neighbours of that generation are
+     * counted, for strategies that compute all counts in one pass.
+     */
+    default void prepare(boolean[][] cells, int rows, int columns) {
+    }
 }
@@ -0,0 +1,33 @@
+package com.havar.gameoflife.model.countstratgegies;
+
+/**
+ * The shapes of neighbourhood supported by
+ * {@link RangeNeighborCountingStrategy}, for a cell at offset (a, b) from the
+ * centre and a range r.
+ */
+public enum Neighborhood {
+	/** The square |a| <= r and |b| <= r. */
+	MOORE,
+	/** The diamond |a| + |b| <= r. */
+	VON_NEUMANN,
+	/**
+	 * A hexagon on a skewed grid, |a| <= r, |b| <= r and |a + b| <= r. Each row is
+	 * shifted half a cell against the previous one, so the six neighbours of range
+	 * one are the 3x3 square without the (-1, -1) and (1, 1) corners.
+	 */
+	HEXAGONAL;
+
+	/**
+	 * @return True if the offset is part of the neighbourhood of the given range.
+	 */
+	public boolean contains(int a, int b, int range) {
+		switch (this) {
+		case MOORE:
+			return Math.abs(a) <= range && Math.abs(b) <= range;
+		case VON_NEUMANN:
+			return Math.abs(a) + Math.abs(b) <= range;
+		default:
+			return Math.abs(a) <= range && Math.abs(b) <= range && Math.abs(a + b) <= range;
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package com.havar.gameoflife.model.countstratgegies;
+
+/**
+ * Counts neighbours within a range r for the neighbourhoods of
+ * {@link Neighborhood}, as used by Larger than Life rules.
+ *
+ * Counting each neighbourhood cell by cell costs O(r^2) per cell. Instead, all
+ * counts of a generation are computed up front in {@link #prepare}, at a cost
+ * per cell that does not depend on the range:
+ *
+ * The Moore neighbourhood is a rectangle, so its count is four lookups in a
+ * summed-area table.
+ *
+ * The von Neumann and hexagonal neighbourhoods are counted once at the start of
+ * each row, and then slid along the row. Moving one cell to the right adds one
+ * edge of the shape and removes the opposite edge. Each edge is made of at most
+ * two straight lines (vertical or diagonal), and a line is summed with two
+ * lookups in a prefix table along that direction.
+ *
+ * The board is padded by r + 1 cells on every side, filled with dead cells or
+ * with the cells from the opposite side when wrapping around, so no lookup
+ * needs a bounds check.
+ */
+public class RangeNeighborCountingStrategy implements NeighborCountingStrategy {
+	private static final int VERTICAL = 0, DIAGONAL = 1, ANTI_DIAGONAL = -1;
+
+	private final Neighborhood neighborhood;
+	private final int range;
+	private final boolean wrapAround;
+	private final int padding;
+
+	private int paddedRows, paddedColumns;
+	private int[] padded;
+	private int[] areaSums;
+	private int[] rowSums;
+	private int[] verticalSums, diagonalSums, antiDiagonalSums;
+	private int[][] counts;
+
+	public RangeNeighborCountingStrategy(Neighborhood neighborhood, int range, boolean wrapAround) {
+		if (range <= 0) {
+			throw new IllegalArgumentException("Range must be positive");
+		}
+		this.neighborhood = neighborhood;
+		this.range = range;
+		this.wrapAround = wrapAround;
+		this.padding = range + 1;
+	}
+
+	@Override
+	public void prepare(boolean[][] cells, int rows, int columns) {
+		allocate(rows, columns);
+		fillPadded(cells, rows, columns);
+
+		if (neighborhood == Neighborhood.MOORE) {
+			countMoore(cells, rows, columns);
+		} else {
+			countSliding(cells, rows, columns);
+		}
+	}
+
+	/**
+	 * Returns the count computed by the last call to {@link #prepare}.
+	 */
+	@Override
+	public int countNeighbors(int rowPosition, int colPosition, boolean[][] cells, int rows, int columns) {
+		return counts[rowPosition][colPosition];
+	}
+
+	public Neighborhood getNeighborhood() {
+		return neighborhood;
+	}
+
+	public int getRange() {
+		return range;
+	}
+
+	public boolean isWrapAround() {
+		return wrapAround;
+	}
+
+	private void allocate(int rows, int columns) {
+		if (counts != null && counts.length == rows && counts[0].length == columns) {
+			return;
+		}
+		paddedRows = rows + 2 * padding;
+		paddedColumns = columns + 2 * padding;
+		padded = new int[paddedRows * paddedColumns];
+		counts = new int[rows][columns];
+		if (neighborhood == Neighborhood.MOORE) {
+			areaSums = new int[(paddedRows + 1) * (paddedColumns + 1)];
+		} else {
+			rowSums = new int[paddedRows * (paddedColumns + 1)];
+			verticalSums = new int[paddedRows * paddedColumns];
+			diagonalSums = new int[paddedRows * paddedColumns];
+			antiDiagonalSums = new int[paddedRows * paddedColumns];
+		}
+	}
+
+	private void fillPadded(boolean[][] cells, int rows, int columns) {
+		for (int i = 0; i < paddedRows; i++) {
+			int r = i - padding;
+			boolean rowInside = r >= 0 && r < rows;
+			if (wrapAround) {
+				r = Math.floorMod(r, rows);
+			}
+			for (int j = 0; j < paddedColumns; j++) {
+				int c = j - padding;
+				boolean inside = rowInside && c >= 0 && c < columns;
+				if (wrapAround) {
+					c = Math.floorMod(c, columns);
+					inside = true;
+				}
+				padded[i * paddedColumns + j] = inside && cells[r][c] ? 1 : 0;
+			}
+		}
+	}
+
+	private void countMoore(boolean[][] cells, int rows, int columns) {
+		int stride = paddedColumns + 1;
+		for (int i = 0; i < paddedRows; i++) {
+			int rowSum = 0;
+			for (int j = 0; j < paddedColumns; j++) {
+				rowSum += padded[i * paddedColumns + j];
+				areaSums[(i + 1) * stride + j + 1] = areaSums[i * stride + j + 1] + rowSum;
+			}
+		}
+
+		for (int x = 0; x < rows; x++) {
+			int top = x + padding - range;
+			int bottom = x + padding + range + 1;
+			for (int y = 0; y < columns; y++) {
+				int left = y + padding - range;
+				int right = y + padding + range + 1;
+				int sum = areaSums[bottom * stride + right] - areaSums[top * stride + right]
+						- areaSums[bottom * stride + left] + areaSums[top * stride + left];
+				counts[x][y] = cells[x][y] ? sum - 1 : sum;
+			}
+		}
+	}
+
+	private void countSliding(boolean[][] cells, int rows, int columns) {
+		int stride = paddedColumns + 1;
+		for (int i = 0; i < paddedRows; i++) {
+			for (int j = 0; j < paddedColumns; j++) {
+				int index = i * paddedColumns + j;
+				int value = padded[index];
+				rowSums[i * stride + j + 1] = rowSums[i * stride + j] + value;
+				verticalSums[index] = value + lineValue(verticalSums, i - 1, j);
+				diagonalSums[index] = value + lineValue(diagonalSums, i - 1, j - 1);
+				antiDiagonalSums[index] = value + lineValue(antiDiagonalSums, i - 1, j + 1);
+			}
+		}
+
+		for (int x = 0; x < rows; x++) {
+			int row = x + padding;
+			int column = padding;
+
+			int sum = 0;
+			for (int a = -range; a <= range; a++) {
+				int offset = (row + a) * stride + column;
+				sum += rowSums[offset + high(a) + 1] - rowSums[offset + low(a)];
+			}
+			counts[x][0] = cells[x][0] ? sum - 1 : sum;
+
+			for (int y = 1; y < columns; y++) {
+				// Slide from column - 1 to column.
+				if (neighborhood == Neighborhood.VON_NEUMANN) {
+					sum += lineSum(DIAGONAL, row - range, column + 1, range + 1)
+							+ lineSum(ANTI_DIAGONAL, row + 1, column + range, range)
+							- lineSum(ANTI_DIAGONAL, row - range, column, range + 1)
+							- lineSum(DIAGONAL, row + 1, column - range + 1, range);
+				} else {
+					sum += lineSum(VERTICAL, row - range, column + range + 1, range + 1)
+							+ lineSum(ANTI_DIAGONAL, row + 1, column + range, range)
+							- lineSum(ANTI_DIAGONAL, row - range, column, range)
+							- lineSum(VERTICAL, row, column - range, range + 1);
+				}
+				column++;
+				counts[x][y] = cells[x][y] ? sum - 1 : sum;
+			}
+		}
+	}
+
+	/**
+	 * @return The lowest column offset of the neighbourhood in the row at offset a.
+	 */
+	private int low(int a) {
+		if (neighborhood == Neighborhood.VON_NEUMANN) {
+			return -(range - Math.abs(a));
+		}
+		return Math.max(-range, -range - a);
+	}
+
+	/**
+	 * @return The highest column offset of the neighbourhood in the row at offset
+	 *         a.
+	 */
+	private int high(int a) {
+		if (neighborhood == Neighborhood.VON_NEUMANN) {
+			return range - Math.abs(a);
+		}
+		return Math.min(range, range - a);
+	}
+
+	/**
+	 * Sums the cells on a line starting at (row, column), going one row down per
+	 * step and moving {@code direction} columns per step.
+	 */
+	private int lineSum(int direction, int row, int column, int length) {
+		if (length <= 0) {
+			return 0;
+		}
+		int[] sums = direction == VERTICAL ? verticalSums
+				: direction == DIAGONAL ? diagonalSums : antiDiagonalSums;
+		int end = sums[(row + length - 1) * paddedColumns + column + (length - 1) * direction];
+		return end - lineValue(sums, row - 1, column - direction);
+	}
+
+	private int lineValue(int[] sums, int row, int column) {
+		if (row < 0 || column < 0 || column >= paddedColumns) {
+			return 0;
+		}
+		return sums[row * paddedColumns + column];
+	}
+}
@@ -0,0 +1,363 @@
+package com.havar.gameoflife.model.history;
+
+import java.util.Arrays;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.PackedBoard;
+
+/**
+ * Bounded store of recent generations, used to step backwards through a run.
+ *
+ * Generations are kept bit-packed. Every {@code keyframeInterval} generations a
+ * full keyframe is stored, and the generations in between are stored as the
+ * XOR of their words with the previous generation, keeping only the words that
+ * changed. Because XOR is its own inverse the same delta can be applied to move
+ * one generation forwards or backwards, so scrubbing from the last visited
+ * generation costs one delta per step.
+ *
+ * When the memory budget is exceeded the oldest keyframe is evicted together
+ * with the deltas that depend on it. The newest keyframe group is never
+ * evicted.
+ *
+ * All methods are synchronized, so the simulation thread can record while the
+ * UI thread reads.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class GenerationHistory {
+	private static final int ENTRY_OVERHEAD_BYTES = 48;
+
+	private final int keyframeInterval;
+	private final long memoryBudget;
+
+	private Entry[] entries = new Entry[64];
+	private int head, size;
+	private long memoryUsage;
+	private int sinceKeyframe;
+
+	private PackedBoard last;
+	private PackedBoard cursor;
+	private int cursorIndex = -1;
+
+	/**
+	 * @param keyframeInterval The maximum amount of generations between two
+	 *                         keyframes.
+	 * @param memoryBudget     The approximate amount of bytes the history may use.
+	 */
+	public GenerationHistory(int keyframeInterval, long memoryBudget) {
+		if (keyframeInterval <= 0) {
+			throw new IllegalArgumentException("Keyframe interval must be positive");
+		}
+		if (memoryBudget <= 0) {
+			throw new IllegalArgumentException("Memory budget must be positive");
+		}
+		this.keyframeInterval = keyframeInterval;
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Records a generation. Recording a generation that is not newer than the
+	 * newest retained one discards that generation and everything after it first,
+	 * so edits and rewinds replace the old future.
+	 *
+	 * @param snapshot The generation to record.
+	 */
+	public synchronized void record(BoardSnapshot snapshot) {
+		if (size > 0 && snapshot.getGeneration() <= entryAt(size - 1).generation) {
+			truncateFrom(snapshot.getGeneration());
+		}
+
+		PackedBoard packed = PackedBoard.of(snapshot);
+		Entry entry = null;
+		if (last != null && last.getRows() == packed.getRows() && last.getColumns() == packed.getColumns()
+				&& sinceKeyframe < keyframeInterval) {
+			entry = createDelta(snapshot.getGeneration(), last.getWords(), packed.getWords());
+		}
+		if (entry == null) {
+			entry = new Entry(snapshot.getGeneration(), packed.getRows(), packed.getColumns(), null, packed.getWords());
+			sinceKeyframe = 0;
+		}
+		sinceKeyframe++;
+		append(entry);
+		last = packed;
+		evict();
+	}
+
+	/**
+	 * Reconstructs a retained generation.
+	 *
+	 * @param generation The generation to look up.
+	 * @return The generation, or null if it is not retained.
+	 */
+	public synchronized BoardSnapshot get(long generation) {
+		int index = indexOf(generation);
+		if (index < 0) {
+			return null;
+		}
+		seek(index);
+		return new BoardSnapshot(cursor.toCells(), generation);
+	}
+
+	public synchronized boolean contains(long generation) {
+		return indexOf(generation) >= 0;
+	}
+
+	/**
+	 * @return The oldest retained generation, or -1 if the history is empty.
+	 */
+	public synchronized long getOldestGeneration() {
+		return size == 0 ? -1 : entryAt(0).generation;
+	}
+
+	/**
+	 * @return The newest retained generation, or -1 if the history is empty.
+	 */
+	public synchronized long getNewestGeneration() {
+		return size == 0 ? -1 : entryAt(size - 1).generation;
+	}
+
+	/**
+	 * @return The retained generation closest before the given one, or -1 if there
+	 *         is none.
+	 */
+	public synchronized long getPreviousGeneration(long generation) {
+		int index = search(generation);
+		int previous = index >= 0 ? index - 1 : -index - 2;
+		return previous >= 0 ? entryAt(previous).generation : -1;
+	}
+
+	/**
+	 * @return The retained generation closest after the given one, or -1 if there
+	 *         is none.
+	 */
+	public synchronized long getNextGeneration(long generation) {
+		int index = search(generation);
+		int next = index >= 0 ? index + 1 : -index - 1;
+		return next < size ? entryAt(next).generation : -1;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @return The approximate amount of bytes used by the retained generations.
+	 */
+	public synchronized long getMemoryUsage() {
+		return memoryUsage;
+	}
+
+	public synchronized void clear() {
+		Arrays.fill(entries, null);
+		head = 0;
+		size = 0;
+		memoryUsage = 0;
+		sinceKeyframe = 0;
+		last = null;
+		invalidateCursor();
+	}
+
+	/**
+	 * Stores only the words that differ from the previous generation. Returns null
+	 * if the delta would not be smaller than a keyframe.
+	 */
+	private Entry createDelta(long generation, long[] previous, long[] current) {
+		int changed = 0;
+		for (int i = 0; i < current.length; i++) {
+			if (previous[i] != current[i]) {
+				changed++;
+			}
+		}
+		// An index and a word per change, so only worth it below half the words.
+		if (changed * 2 >= current.length) {
+			return null;
+		}
+
+		int[] indices = new int[changed];
+		long[] xors = new long[changed];
+		int k = 0;
+		for (int i = 0; i < current.length; i++) {
+			long xor = previous[i] ^ current[i];
+			if (xor != 0) {
+				indices[k] = i;
+				xors[k] = xor;
+				k++;
+			}
+		}
+		return new Entry(generation, last.getRows(), last.getColumns(), indices, xors);
+	}
+
+	/**
+	 * Moves the cursor to the entry at the given logical index, either by applying
+	 * deltas from its current position or by starting over from a keyframe.
+	 */
+	private void seek(int index) {
+		int keyframe = index;
+		while (!entryAt(keyframe).isKeyframe()) {
+			keyframe--;
+		}
+
+		if (cursorIndex >= 0 && Math.abs(cursorIndex - index) <= index - keyframe && isSameGroup(cursorIndex, index)) {
+			while (cursorIndex < index) {
+				cursorIndex++;
+				entryAt(cursorIndex).applyTo(cursor.getWords());
+			}
+			while (cursorIndex > index) {
+				entryAt(cursorIndex).applyTo(cursor.getWords());
+				cursorIndex--;
+			}
+			return;
+		}
+
+		Entry key = entryAt(keyframe);
+		if (cursor == null || cursor.getRows() != key.rows || cursor.getColumns() != key.columns) {
+			cursor = new PackedBoard(key.rows, key.columns);
+		}
+		System.arraycopy(key.words, 0, cursor.getWords(), 0, key.words.length);
+		cursorIndex = keyframe;
+		while (cursorIndex < index) {
+			cursorIndex++;
+			entryAt(cursorIndex).applyTo(cursor.getWords());
+		}
+	}
+
+	private boolean isSameGroup(int from, int to) {
+		for (int i = Math.min(from, to) + 1; i <= Math.max(from, to); i++) {
+			if (entryAt(i).isKeyframe()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void append(Entry entry) {
+		if (size == entries.length) {
+			Entry[] grown = new Entry[entries.length * 2];
+			for (int i = 0; i < size; i++) {
+				grown[i] = entryAt(i);
+			}
+			entries = grown;
+			head = 0;
+		}
+		entries[(head + size) % entries.length] = entry;
+		size++;
+		memoryUsage += entry.bytes();
+	}
+
+	/**
+	 * Evicts the oldest keyframe group while over budget, keeping at least the
+	 * newest group.
+	 */
+	private void evict() {
+		while (memoryUsage > memoryBudget) {
+			int groupEnd = 1;
+			while (groupEnd < size && !entryAt(groupEnd).isKeyframe()) {
+				groupEnd++;
+			}
+			if (groupEnd >= size) {
+				return;
+			}
+			for (int i = 0; i < groupEnd; i++) {
+				memoryUsage -= entries[head].bytes();
+				entries[head] = null;
+				head = (head + 1) % entries.length;
+			}
+			size -= groupEnd;
+			invalidateCursor();
+		}
+	}
+
+	private void truncateFrom(long generation) {
+		int index = search(generation);
+		int from = index >= 0 ? index : -index - 1;
+		for (int i = size - 1; i >= from; i--) {
+			int slot = (head + i) % entries.length;
+			memoryUsage -= entries[slot].bytes();
+			entries[slot] = null;
+		}
+		size = from;
+		invalidateCursor();
+
+		// Rebuild the reference generation for the next delta from what is left.
+		if (size == 0) {
+			last = null;
+			sinceKeyframe = 0;
+			return;
+		}
+		seek(size - 1);
+		last = cursor.copy();
+		sinceKeyframe = 0;
+		for (int i = size - 1; i >= 0 && !entryAt(i).isKeyframe(); i--) {
+			sinceKeyframe++;
+		}
+		sinceKeyframe++;
+	}
+
+	private void invalidateCursor() {
+		cursorIndex = -1;
+	}
+
+	private int indexOf(long generation) {
+		int index = search(generation);
+		return index >= 0 ? index : -1;
+	}
+
+	/**
+	 * Binary search over the logical indices, with the same return convention as
+	 * {@link Arrays#binarySearch(long[], long)}.
+	 */
+	private int search(long generation) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long value = entryAt(mid).generation;
+			if (value < generation) {
+				low = mid + 1;
+			} else if (value > generation) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private Entry entryAt(int index) {
+		return entries[(head + index) % entries.length];
+	}
+
+	/**
+	 * A keyframe has no indices and stores every word. A delta stores the changed
+	 * word indices and the XOR of the old and new word.
+	 */
+	private static final class Entry {
+		private final long generation;
+		private final int rows, columns;
+		private final int[] indices;
+		private final long[] words;
+
+		private Entry(long generation, int rows, int columns, int[] indices, long[] words) {
+			this.generation = generation;
+			this.rows = rows;
+			this.columns = columns;
+			this.indices = indices;
+			this.words = words;
+		}
+
+		private boolean isKeyframe() {
+			return indices == null;
+		}
+
+		private void applyTo(long[] target) {
+			for (int i = 0; i < indices.length; i++) {
+				target[indices[i]] ^= words[i];
+			}
+		}
+
+		private long bytes() {
+			return ENTRY_OVERHEAD_BYTES + words.length * 8L + (indices == null ? 0 : indices.length * 4L);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.havar.gameoflife.model.rules;
+
+/**
+ * The rules of Conway's Game of Life, B3/S23.
+ * 
+ * 1: Any live cell with two or three live neighbours survives. 2: Any dead cell
+ * with three live neighbours becomes a live cell. 3: All other live cells die
+ * in the next generation. Similarly, all other dead cells stay dead.
+ * 
+ * @author Havar Ameen
+ *
+ */
+public class ConwayRule implements Rule {
+
+	@Override
+	public boolean nextState(boolean alive, int aliveNeighbors) {
+		if (alive == true && (aliveNeighbors == 2 || aliveNeighbors == 3)) { // Rule 1
+			return true;
+		} else if (alive == false && aliveNeighbors == 3) { // Rule 2
+			return true;
+		}
+		return false; // Rule 3
+	}
+
+	@Override
+	public String toString() {
+		return "Conway (B3/S23)";
+	}
+}
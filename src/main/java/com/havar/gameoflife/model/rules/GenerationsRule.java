@@ -0,0 +1,156 @@
+package com.havar.gameoflife.model.rules;
+
+/**
+ * Generations rules, where a live cell that does not survive does not die
+ * straight away but decays through a number of dying states first. Dying cells
+ * do not count as live neighbours and can not be born again until they have
+ * reached the dead state.
+ *
+ * State 0 is dead and state 1 is alive. A live cell that does not survive moves
+ * to state 2, and every dying state moves one state on per generation until it
+ * wraps around to 0 after state C - 1, where C is the amount of states.
+ *
+ * Rules are written as {@code B2/S/C3} (Brian's Brain), or in the notation used
+ * by Golly, where the survival counts, birth counts and the amount of states are
+ * separated by slashes: {@code /2/3}.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class GenerationsRule implements Rule {
+	public static final String BRIANS_BRAIN = "B2/S/C3";
+	public static final String STAR_WARS = "B2/S345/C4";
+	public static final int MAX_STATES = 256;
+
+	private final int birthMask;
+	private final int survivalMask;
+	private final int stateCount;
+	private final String name;
+
+	/**
+	 * @param birthMask    Bit n is set if a dead cell with n live neighbours is
+	 *                     born.
+	 * @param survivalMask Bit n is set if a live cell with n live neighbours
+	 *                     survives.
+	 * @param stateCount   The amount of states, including the dead and alive state.
+	 * @param name         The name shown for the rule.
+	 */
+	public GenerationsRule(int birthMask, int survivalMask, int stateCount, String name) {
+		if (stateCount < 2 || stateCount > MAX_STATES) {
+			throw new IllegalArgumentException("The amount of states must be between 2 and " + MAX_STATES);
+		}
+		this.birthMask = birthMask;
+		this.survivalMask = survivalMask;
+		this.stateCount = stateCount;
+		this.name = name;
+	}
+
+	/**
+	 * Parses a rule in one of the notations described above.
+	 *
+	 * @param notation The rule, for example {@link #BRIANS_BRAIN}.
+	 * @param name     The name shown for the rule, or null to show the notation.
+	 * @return The rule.
+	 */
+	public static GenerationsRule parse(String notation, String name) {
+		String[] parts = notation.trim().toUpperCase().split("/", -1);
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Expected three parts separated by '/' in rule: " + notation);
+		}
+
+		String birth = null, survival = null, states = null;
+		if (notation.toUpperCase().contains("B")) {
+			for (String part : parts) {
+				if (part.isEmpty()) {
+					throw new IllegalArgumentException("Empty part in rule: " + notation);
+				}
+				String value = part.substring(1);
+				switch (part.charAt(0)) {
+				case 'B':
+					birth = value;
+					break;
+				case 'S':
+					survival = value;
+					break;
+				case 'C':
+				case 'G':
+					states = value;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown part '" + part + "' in rule: " + notation);
+				}
+			}
+			if (birth == null || survival == null || states == null) {
+				throw new IllegalArgumentException("Missing part in rule: " + notation);
+			}
+		} else {
+			survival = parts[0];
+			birth = parts[1];
+			states = parts[2];
+		}
+
+		int stateCount;
+		try {
+			stateCount = Integer.parseInt(states);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid amount of states '" + states + "' in rule: " + notation, e);
+		}
+		return new GenerationsRule(parseCounts(birth, notation), parseCounts(survival, notation), stateCount,
+				name == null ? notation : name);
+	}
+
+	/**
+	 * Decides whether a cell is alive in the next generation. A dead cell is
+	 * assumed to be in state 0, use {@link #nextState(int, int)} for dying cells.
+	 */
+	@Override
+	public boolean nextState(boolean alive, int aliveNeighbors) {
+		return nextState(alive ? 1 : 0, aliveNeighbors) == 1;
+	}
+
+	/**
+	 * Decides the next state of a cell.
+	 *
+	 * @param state          The current state, between 0 and the amount of states.
+	 * @param aliveNeighbors The amount of neighbours in state 1.
+	 * @return The next state.
+	 */
+	public int nextState(int state, int aliveNeighbors) {
+		if (state == 0) {
+			return (birthMask >> aliveNeighbors & 1) != 0 ? 1 : 0;
+		}
+		if (state == 1 && (survivalMask >> aliveNeighbors & 1) != 0) {
+			return 1;
+		}
+		int next = state + 1;
+		return next >= stateCount ? 0 : next;
+	}
+
+	public int getStateCount() {
+		return stateCount;
+	}
+
+	public int getBirthMask() {
+		return birthMask;
+	}
+
+	public int getSurvivalMask() {
+		return survivalMask;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	private static int parseCounts(String value, String notation) {
+		int mask = 0;
+		for (char c : value.toCharArray()) {
+			if (c < '0' || c > '8') {
+				throw new IllegalArgumentException("Invalid neighbour count '" + c + "' in rule: " + notation);
+			}
+			mask |= 1 << (c - '0');
+		}
+		return mask;
+	}
+}
@@ -0,0 +1,179 @@
+package com.havar.gameoflife.model.rules;
+
+import com.havar.gameoflife.model.countstratgegies.Neighborhood;
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.countstratgegies.RangeNeighborCountingStrategy;
+
+/**
+ * Larger than Life rules, which count the live cells within a range r and let
+ * cells survive or be born when the count falls within an interval.
+ *
+ * Rules are written in the notation used by Golly, for example Bosco's Rule:
+ * {@code R5,C0,M1,S34..58,B34..45,NM}. R is the range, C the amount of states
+ * (0 or 2 for two states), M1 includes the cell itself in the count, S and B
+ * are the survival and birth intervals, and NM, NN or NH selects the Moore, von
+ * Neumann or hexagonal neighbourhood.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class LargerThanLifeRule implements Rule {
+	public static final String BOSCO = "R5,C0,M1,S34..58,B34..45,NM";
+	public static final String MAJORITY = "R4,C0,M1,S41..81,B41..81,NM";
+
+	private final int range;
+	private final Neighborhood neighborhood;
+	private final boolean includeCenter;
+	private final int survivalMin, survivalMax;
+	private final int birthMin, birthMax;
+	private final String name;
+
+	public LargerThanLifeRule(int range, Neighborhood neighborhood, boolean includeCenter, int survivalMin,
+			int survivalMax, int birthMin, int birthMax, String name) {
+		if (range <= 0) {
+			throw new IllegalArgumentException("Range must be positive");
+		}
+		this.range = range;
+		this.neighborhood = neighborhood;
+		this.includeCenter = includeCenter;
+		this.survivalMin = survivalMin;
+		this.survivalMax = survivalMax;
+		this.birthMin = birthMin;
+		this.birthMax = birthMax;
+		this.name = name;
+	}
+
+	/**
+	 * Parses a rule in the notation described above.
+	 *
+	 * @param notation The rule, for example {@link #BOSCO}.
+	 * @param name     The name shown for the rule, or null to show the notation.
+	 * @return The rule.
+	 */
+	public static LargerThanLifeRule parse(String notation, String name) {
+		int range = 1;
+		int states = 2;
+		boolean includeCenter = false;
+		int[] survival = { 0, -1 };
+		int[] birth = { 0, -1 };
+		Neighborhood neighborhood = Neighborhood.MOORE;
+
+		for (String part : notation.trim().toUpperCase().split(",")) {
+			if (part.isEmpty()) {
+				throw new IllegalArgumentException("Empty part in rule: " + notation);
+			}
+			String value = part.substring(1);
+			switch (part.charAt(0)) {
+			case 'R':
+				range = parseNumber(value, notation);
+				break;
+			case 'C':
+				states = Math.max(2, parseNumber(value, notation));
+				break;
+			case 'M':
+				includeCenter = parseNumber(value, notation) == 1;
+				break;
+			case 'S':
+				survival = parseInterval(value, notation);
+				break;
+			case 'B':
+				birth = parseInterval(value, notation);
+				break;
+			case 'N':
+				neighborhood = parseNeighborhood(value, notation);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown part '" + part + "' in rule: " + notation);
+			}
+		}
+		if (states > 2) {
+			throw new IllegalArgumentException("Only rules with two states are supported: " + notation);
+		}
+		return new LargerThanLifeRule(range, neighborhood, includeCenter, survival[0], survival[1], birth[0],
+				birth[1], name == null ? notation : name);
+	}
+
+	@Override
+	public boolean nextState(boolean alive, int aliveNeighbors) {
+		int count = includeCenter && alive ? aliveNeighbors + 1 : aliveNeighbors;
+		if (alive) {
+			return count >= survivalMin && count <= survivalMax;
+		}
+		return count >= birthMin && count <= birthMax;
+	}
+
+	@Override
+	public NeighborCountingStrategy createNeighborCountingStrategy(boolean wrapAround) {
+		return new RangeNeighborCountingStrategy(neighborhood, range, wrapAround);
+	}
+
+	public int getRange() {
+		return range;
+	}
+
+	public Neighborhood getNeighborhood() {
+		return neighborhood;
+	}
+
+	public boolean isIncludeCenter() {
+		return includeCenter;
+	}
+
+	public int getSurvivalMin() {
+		return survivalMin;
+	}
+
+	public int getSurvivalMax() {
+		return survivalMax;
+	}
+
+	public int getBirthMin() {
+		return birthMin;
+	}
+
+	public int getBirthMax() {
+		return birthMax;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	private static int parseNumber(String value, String notation) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid number '" + value + "' in rule: " + notation, e);
+		}
+	}
+
+	/**
+	 * Parses "a..b" or a single number. An empty value is an empty interval.
+	 */
+	private static int[] parseInterval(String value, String notation) {
+		if (value.isEmpty()) {
+			return new int[] { 0, -1 };
+		}
+		int dots = value.indexOf("..");
+		if (dots < 0) {
+			int number = parseNumber(value, notation);
+			return new int[] { number, number };
+		}
+		return new int[] { parseNumber(value.substring(0, dots), notation),
+				parseNumber(value.substring(dots + 2), notation) };
+	}
+
+	private static Neighborhood parseNeighborhood(String value, String notation) {
+		switch (value) {
+		case "M":
+			return Neighborhood.MOORE;
+		case "N":
+			return Neighborhood.VON_NEUMANN;
+		case "H":
+			return Neighborhood.HEXAGONAL;
+		default:
+			throw new IllegalArgumentException("Unknown neighbourhood '" + value + "' in rule: " + notation);
+		}
+	}
+}
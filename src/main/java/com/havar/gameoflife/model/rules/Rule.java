@@ -0,0 +1,29 @@
+package com.havar.gameoflife.model.rules;
+
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithBordersStrategy;
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithWrapAroundStrategy;
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+
+/**
+ * Decides the next state of a cell from its current state and the amount of
+ * live cells in its neighbourhood.
+ * 
+ * @author Havar Ameen
+ *
+ */
+public interface Rule {
+	boolean nextState(boolean alive, int aliveNeighbors);
+
+	/**
+	 * Creates the strategy that counts the neighbourhood this rule expects. Rules
+	 * use the 3x3 Moore neighbourhood unless they say otherwise.
+	 * 
+	 * @param wrapAround Whether the board wraps around at the edges.
+	 */
+	default NeighborCountingStrategy createNeighborCountingStrategy(boolean wrapAround) {
+		if (wrapAround) {
+			return new CountNeighborsWithWrapAroundStrategy();
+		}
+		return new CountNeighborsWithBordersStrategy();
+	}
+}
@@ -0,0 +1,77 @@
+package com.havar.gameoflife.model.soup;
+
+/**
+ * A soup that was recorded by a {@link SoupSearch} because its outcome was
+ * interesting.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class SoupResult {
+	private final long index;
+	private final long seed;
+	private final int lifespan;
+	private final int period;
+	private final int finalPopulation;
+	private final String census;
+
+	SoupResult(long index, long seed, int lifespan, int period, int finalPopulation, String census) {
+		this.index = index;
+		this.seed = seed;
+		this.lifespan = lifespan;
+		this.period = period;
+		this.finalPopulation = finalPopulation;
+		this.census = census;
+	}
+
+	/**
+	 * @return The position of the soup in the search.
+	 */
+	public long getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return The seed the soup was generated from, see
+	 *         {@link SoupSearch#createSoup(long)}.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return The generation at which the soup became periodic, or the generation
+	 *         limit if it never did.
+	 */
+	public int getLifespan() {
+		return lifespan;
+	}
+
+	/**
+	 * @return The period of the final state, or 0 if the soup did not stabilize.
+	 */
+	public int getPeriod() {
+		return period;
+	}
+
+	public boolean isStabilized() {
+		return period > 0;
+	}
+
+	public int getFinalPopulation() {
+		return finalPopulation;
+	}
+
+	/**
+	 * @return The objects left on the board at the end.
+	 */
+	public String getCensus() {
+		return census;
+	}
+
+	@Override
+	public String toString() {
+		return "Soup " + index + " (seed " + Long.toHexString(seed) + "): lifespan " + lifespan + ", period " + period
+				+ ", population " + finalPopulation + ", " + census;
+	}
+}
@@ -0,0 +1,280 @@
+package com.havar.gameoflife.model.soup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.havar.gameoflife.model.BitParallelLife;
+import com.havar.gameoflife.model.PackedBoard;
+import com.havar.gameoflife.model.census.PatternCensus;
+
+/**
+ * Evaluates large amounts of small random boards ("soups") in parallel and
+ * records the ones with an interesting outcome.
+ *
+ * Each soup is a square of random cells in the middle of a 64x64 bounded
+ * board, stored as one long per row and stepped with {@link BitParallelLife}.
+ * A soup is run until the board repeats an earlier state, which gives both its
+ * lifespan and the period of what is left. Soups are recorded when they live
+ * long, end in an oscillator with a period above two away from the edge of the
+ * board, or do not settle within the generation limit.
+ *
+ * The cells of soup {@code i} only depend on the search seed and {@code i}, so
+ * a search gives the same results for any amount of threads. Workers reuse
+ * their buffers and random state between soups; only recorded soups allocate.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class SoupSearch {
+	public static final int BOARD_SIZE = 64;
+
+	private static final int HASH_HISTORY = 32;
+	private static final int BATCH_SIZE = 256;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final int soupSize;
+	private final int maxGenerations;
+	private final int minLifespan;
+	private final int threads;
+
+	private final LongAdder generationsComputed = new LongAdder();
+
+	/**
+	 * @param soupSize       The width and height of the random square, at most 64.
+	 * @param maxGenerations The generation limit per soup.
+	 * @param minLifespan    Soups that take at least this many generations to
+	 *                       settle are recorded.
+	 * @param threads        The amount of worker threads.
+	 */
+	public SoupSearch(int soupSize, int maxGenerations, int minLifespan, int threads) {
+		if (soupSize <= 0 || soupSize > BOARD_SIZE) {
+			throw new IllegalArgumentException("Soup size must be between 1 and " + BOARD_SIZE);
+		}
+		if (maxGenerations <= 0 || threads <= 0) {
+			throw new IllegalArgumentException("Generation limit and thread count must be positive");
+		}
+		this.soupSize = soupSize;
+		this.maxGenerations = maxGenerations;
+		this.minLifespan = minLifespan;
+		this.threads = threads;
+	}
+
+	/**
+	 * Runs a search and blocks until it is done.
+	 *
+	 * @param seed  The seed of the search.
+	 * @param soups The amount of soups to evaluate.
+	 * @return The recorded soups, ordered by their index.
+	 */
+	public List<SoupResult> run(long seed, long soups) throws InterruptedException {
+		ConcurrentLinkedQueue<SoupResult> results = new ConcurrentLinkedQueue<>();
+		AtomicLong nextSoup = new AtomicLong();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				workers.add(executor.submit(new Worker(seed, soups, nextSoup, results)));
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Soup search failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		List<SoupResult> sorted = new ArrayList<>(results);
+		sorted.sort(Comparator.comparingLong(SoupResult::getIndex));
+		return sorted;
+	}
+
+	/**
+	 * @return The total amount of generations stepped by all searches so far.
+	 */
+	public long getGenerationsComputed() {
+		return generationsComputed.sum();
+	}
+
+	/**
+	 * Recreates the cells of a soup, for example to load a recorded soup into the
+	 * main board.
+	 *
+	 * @param soupSeed The seed of the soup, see {@link SoupResult#getSeed()}.
+	 * @return A 64x64 board with the soup in the middle.
+	 */
+	public boolean[][] createSoup(long soupSeed) {
+		long[] rows = new long[BOARD_SIZE];
+		fillSoup(rows, soupSeed);
+		PackedBoard board = new PackedBoard(BOARD_SIZE, BOARD_SIZE);
+		System.arraycopy(rows, 0, board.getWords(), 0, BOARD_SIZE);
+		return board.toCells();
+	}
+
+	/**
+	 * Derives the seed of a single soup, so every soup can be generated on its own
+	 * without stepping a shared random generator.
+	 */
+	static long soupSeed(long seed, long index) {
+		return mix64(seed + (index + 1) * GOLDEN_GAMMA);
+	}
+
+	private void fillSoup(long[] rows, long soupSeed) {
+		int offset = (BOARD_SIZE - soupSize) / 2;
+		long mask = (soupSize == 64 ? -1L : (1L << soupSize) - 1) << offset;
+		long state = soupSeed;
+		for (int i = 0; i < BOARD_SIZE; i++) {
+			if (i >= offset && i < offset + soupSize) {
+				state += GOLDEN_GAMMA;
+				rows[i] = mix64(state) & mask;
+			} else {
+				rows[i] = 0L;
+			}
+		}
+	}
+
+	/**
+	 * The SplitMix64 output function.
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long hash(long[] rows) {
+		long hash = 0L;
+		for (long row : rows) {
+			hash = mix64(hash + row + GOLDEN_GAMMA);
+		}
+		return hash;
+	}
+
+	private class Worker implements Runnable {
+		private final long seed;
+		private final long soups;
+		private final AtomicLong nextSoup;
+		private final ConcurrentLinkedQueue<SoupResult> results;
+
+		private long[] current = new long[BOARD_SIZE];
+		private long[] next = new long[BOARD_SIZE];
+		private final long[] hashes = new long[HASH_HISTORY];
+		private PatternCensus census;
+
+		private Worker(long seed, long soups, AtomicLong nextSoup, ConcurrentLinkedQueue<SoupResult> results) {
+			this.seed = seed;
+			this.soups = soups;
+			this.nextSoup = nextSoup;
+			this.results = results;
+		}
+
+		@Override
+		public void run() {
+			long generations = 0;
+			while (!Thread.currentThread().isInterrupted()) {
+				long first = nextSoup.getAndAdd(BATCH_SIZE);
+				if (first >= soups) {
+					break;
+				}
+				long last = Math.min(soups, first + BATCH_SIZE);
+				for (long index = first; index < last; index++) {
+					generations += evaluate(index);
+				}
+			}
+			generationsComputed.add(generations);
+		}
+
+		/**
+		 * Runs a single soup until it repeats a state seen in the last
+		 * {@link #HASH_HISTORY} generations.
+		 *
+		 * @return The amount of generations stepped.
+		 */
+		private int evaluate(long index) {
+			long soupSeed = soupSeed(seed, index);
+			fillSoup(current, soupSeed);
+
+			int period = 0;
+			int generation = 0;
+			while (generation < maxGenerations) {
+				long hash = hash(current);
+				for (int back = 1; back <= Math.min(generation, HASH_HISTORY); back++) {
+					if (hashes[(generation - back) % HASH_HISTORY] == hash) {
+						period = back;
+						break;
+					}
+				}
+				if (period > 0) {
+					break;
+				}
+				hashes[generation % HASH_HISTORY] = hash;
+
+				BitParallelLife.stepRows(current, next, BOARD_SIZE, -1L);
+				long[] swap = current;
+				current = next;
+				next = swap;
+				generation++;
+			}
+
+			int lifespan = period > 0 ? generation - period : generation;
+			if (period == 0 || (period > 2 && !touchesEdge()) || lifespan >= minLifespan) {
+				record(index, soupSeed, lifespan, period);
+			}
+			return generation;
+		}
+
+		/**
+		 * Debris that reaches the edge of the bounded board often turns into
+		 * oscillators that would not exist on an unbounded one.
+		 */
+		private boolean touchesEdge() {
+			long edges = current[0] | current[BOARD_SIZE - 1];
+			for (long row : current) {
+				edges |= row & (1L | 1L << (BOARD_SIZE - 1));
+			}
+			return edges != 0;
+		}
+
+		private void record(long index, long soupSeed, int lifespan, int period) {
+			if (census == null) {
+				census = new PatternCensus();
+			}
+			PackedBoard board = new PackedBoard(BOARD_SIZE, BOARD_SIZE);
+			System.arraycopy(current, 0, board.getWords(), 0, BOARD_SIZE);
+			results.add(new SoupResult(index, soupSeed, lifespan, period, board.getPopulation(),
+					census.classify(board, lifespan).toString()));
+		}
+	}
+
+	/**
+	 * Runs a search from the command line and prints the recorded soups.
+	 *
+	 * Arguments: soup count, seed, minimum lifespan and thread count, all
+	 * optional.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		long soups = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		int minLifespan = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		SoupSearch search = new SoupSearch(16, 10_000, minLifespan, threads);
+		long start = System.nanoTime();
+		List<SoupResult> results = search.run(seed, soups);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		for (SoupResult result : results) {
+			System.out.println(result);
+		}
+		System.out.printf("Searched %d soups with seed %d in %.1f s (%.0f soups/s, %.0f generations/s)%n", soups, seed,
+				seconds, soups / seconds, search.getGenerationsComputed() / seconds);
+	}
+}
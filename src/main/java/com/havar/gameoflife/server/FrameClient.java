@@ -0,0 +1,166 @@
+package com.havar.gameoflife.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Receives frames from a {@link FrameServer} and keeps the subscribed region of
+ * the board up to date.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class FrameClient implements Closeable {
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+
+	private long generation = -1;
+	private int boardRows, boardColumns;
+	private int frameWidth, frameHeight;
+	private long[] bits = new long[0];
+	private long[] delta = new long[0];
+	private long framesReceived;
+
+	public FrameClient(String host, int port) throws IOException {
+		this.socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+	}
+
+	/**
+	 * Asks the server to only send the given region of the board. Until the first
+	 * subscription, the server sends the whole board at scale 1.
+	 *
+	 * @param x      The first row of the region.
+	 * @param y      The first column of the region.
+	 * @param width  The amount of rows in the region.
+	 * @param height The amount of columns in the region.
+	 * @param scale  The amount of cells along each side of a frame cell.
+	 */
+	public void subscribe(int x, int y, int width, int height, int scale) throws IOException {
+		if (width <= 0 || height <= 0 || scale <= 0) {
+			throw new IllegalArgumentException("The region and scale need to be positive.");
+		}
+		out.writeByte(FrameCodec.SUBSCRIBE);
+		out.writeInt(x);
+		out.writeInt(y);
+		out.writeInt(width);
+		out.writeInt(height);
+		out.writeInt(scale);
+		out.flush();
+	}
+
+	/**
+	 * Blocks until the next frame arrives and applies it.
+	 *
+	 * @return True if the frame was a keyframe.
+	 */
+	public boolean readFrame() throws IOException {
+		byte type = in.readByte();
+		long frameGeneration = in.readLong();
+		int rows = in.readInt();
+		int columns = in.readInt();
+		in.readInt(); // x
+		in.readInt(); // y
+		int width = in.readInt();
+		int height = in.readInt();
+		int scale = in.readInt();
+		byte[] payload = new byte[in.readInt()];
+		in.readFully(payload);
+
+		int newWidth = FrameCodec.frameSize(width, scale);
+		int newHeight = FrameCodec.frameSize(height, scale);
+		int count = newWidth * newHeight;
+		int words = (count + 63) >>> 6;
+		DataInputStream runs = new DataInputStream(new ByteArrayInputStream(payload));
+
+		if (type == FrameCodec.KEYFRAME) {
+			bits = new long[words];
+			FrameCodec.decodeRuns(runs, bits, count);
+		} else if (type == FrameCodec.DELTA) {
+			if (bits.length != words || newWidth != frameWidth || newHeight != frameHeight) {
+				throw new IOException("Delta frame does not match the previous frame");
+			}
+			if (delta.length != words) {
+				delta = new long[words];
+			} else {
+				Arrays.fill(delta, 0L);
+			}
+			FrameCodec.decodeRuns(runs, delta, count);
+			for (int w = 0; w < words; w++) {
+				bits[w] ^= delta[w];
+			}
+		} else {
+			throw new IOException("Unknown frame type " + type);
+		}
+
+		generation = frameGeneration;
+		boardRows = rows;
+		boardColumns = columns;
+		frameWidth = newWidth;
+		frameHeight = newHeight;
+		framesReceived++;
+		return type == FrameCodec.KEYFRAME;
+	}
+
+	/**
+	 * @param frameRow    The row within the frame.
+	 * @param frameColumn The column within the frame.
+	 * @return True if the frame cell is alive.
+	 */
+	public boolean isAlive(int frameRow, int frameColumn) {
+		int bit = frameRow * frameHeight + frameColumn;
+		return (bits[bit >>> 6] >>> bit & 1L) != 0;
+	}
+
+	/**
+	 * @return A copy of the cells of the last frame.
+	 */
+	public boolean[][] getCells() {
+		boolean[][] cells = new boolean[frameWidth][frameHeight];
+		for (int i = 0; i < frameWidth; i++) {
+			for (int j = 0; j < frameHeight; j++) {
+				cells[i][j] = isAlive(i, j);
+			}
+		}
+		return cells;
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+
+	public int getBoardRows() {
+		return boardRows;
+	}
+
+	public int getBoardColumns() {
+		return boardColumns;
+	}
+
+	public int getFrameWidth() {
+		return frameWidth;
+	}
+
+	public int getFrameHeight() {
+		return frameHeight;
+	}
+
+	public long getFramesReceived() {
+		return framesReceived;
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
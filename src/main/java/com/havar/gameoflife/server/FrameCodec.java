@@ -0,0 +1,152 @@
+package com.havar.gameoflife.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+
+/**
+ * The wire format shared by {@link FrameServer} and {@link FrameClient}.
+ *
+ * A client subscribes to a region of the board by sending {@link #SUBSCRIBE}
+ * followed by the x, y, width and height of the region in cells and a scale,
+ * all as ints. At scale s every s x s block of cells becomes one cell of the
+ * frame, which is alive if any cell of the block is alive.
+ *
+ * The server sends frames made of a type byte ({@link #KEYFRAME} or
+ * {@link #DELTA}), the generation as a long, the board size, the region and
+ * scale as ints, and a payload preceded by its length. The payload is a list of
+ * run lengths, as variable length integers, for alternating runs of zero and
+ * one bits over the cells of the frame row by row, starting with zeros. A
+ * keyframe encodes the cells, a delta encodes the cells that changed since the
+ * previous frame sent to the client.
+ *
+ * @author Havar Ameen
+ *
+ */
+final class FrameCodec {
+	static final byte SUBSCRIBE = 1;
+	static final byte KEYFRAME = 1;
+	static final byte DELTA = 2;
+
+	private FrameCodec() {
+	}
+
+	/**
+	 * Samples a region of the snapshot into packed bits, one bit per frame cell.
+	 * Cells outside the board are dead.
+	 */
+	static void sample(BoardSnapshot snapshot, int x, int y, int width, int height, int scale, long[] bits) {
+		Arrays.fill(bits, 0L);
+		int rows = snapshot.getRows();
+		int columns = snapshot.getColumns();
+		int frameWidth = frameSize(width, scale);
+		int frameHeight = frameSize(height, scale);
+		for (int fx = 0; fx < frameWidth; fx++) {
+			int firstRow = Math.max(0, x + fx * scale);
+			int lastRow = Math.min(rows, Math.min(x + width, x + (fx + 1) * scale));
+			for (int fy = 0; fy < frameHeight; fy++) {
+				int firstColumn = Math.max(0, y + fy * scale);
+				int lastColumn = Math.min(columns, Math.min(y + height, y + (fy + 1) * scale));
+				if (anyAlive(snapshot, firstRow, lastRow, firstColumn, lastColumn)) {
+					int bit = fx * frameHeight + fy;
+					bits[bit >>> 6] |= 1L << bit;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The amount of frame cells along a side of the given length.
+	 */
+	static int frameSize(int length, int scale) {
+		return length / scale + (length % scale == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Writes the runs of the first {@code count} bits.
+	 */
+	static void encodeRuns(long[] bits, int count, ByteArrayOutputStream out) {
+		int position = 0;
+		boolean ones = false;
+		while (position < count) {
+			int end = nextChange(bits, position, ones, count);
+			writeVarint(out, end - position);
+			position = end;
+			ones = !ones;
+		}
+	}
+
+	/**
+	 * Reads runs written by {@link #encodeRuns} into the bits, which must be
+	 * cleared beforehand.
+	 */
+	static void decodeRuns(DataInput in, long[] bits, int count) throws IOException {
+		int position = 0;
+		boolean ones = false;
+		while (position < count) {
+			int length = readVarint(in);
+			if (length > count - position) {
+				throw new IOException("Run exceeds the frame size");
+			}
+			if (ones) {
+				for (int bit = position; bit < position + length; bit++) {
+					bits[bit >>> 6] |= 1L << bit;
+				}
+			}
+			position += length;
+			ones = !ones;
+		}
+	}
+
+	/**
+	 * @return The position of the first bit from {@code position} that is not
+	 *         {@code ones}, or {@code count} if there is none.
+	 */
+	private static int nextChange(long[] bits, int position, boolean ones, int count) {
+		int word = position >>> 6;
+		long value = (ones ? ~bits[word] : bits[word]) & (-1L << position);
+		while (value == 0) {
+			word++;
+			if (word << 6 >= count) {
+				return count;
+			}
+			value = ones ? ~bits[word] : bits[word];
+		}
+		return Math.min(count, (word << 6) + Long.numberOfTrailingZeros(value));
+	}
+
+	private static boolean anyAlive(BoardSnapshot snapshot, int firstRow, int lastRow, int firstColumn,
+			int lastColumn) {
+		for (int i = firstRow; i < lastRow; i++) {
+			for (int j = firstColumn; j < lastColumn; j++) {
+				if (snapshot.isAlive(i, j)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7f) != 0) {
+			out.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed run length");
+	}
+}
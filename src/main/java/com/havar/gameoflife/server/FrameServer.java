@@ -0,0 +1,322 @@
+package com.havar.gameoflife.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+
+/**
+ * Streams generations to remote viewers over TCP, see {@link FrameCodec} for
+ * the format and {@link FrameClient} for a client.
+ *
+ * Each client has a single slot for the newest generation. Publishing a
+ * generation replaces whatever is still waiting in the slot, so a slow client
+ * skips generations instead of making the server buffer them. Every client is
+ * sent deltas against the last frame it actually received, and a keyframe when
+ * it connects, changes its subscription, the board is resized, or every
+ * {@link #KEYFRAME_INTERVAL} frames.
+ *
+ * Publishing only retains the snapshot; sampling, encoding and writing happen
+ * on a thread per client.
+ *
+ * @author Havar Ameen
+ *
+ */
+public class FrameServer implements AutoCloseable {
+	public static final int KEYFRAME_INTERVAL = 100;
+	/**
+	 * The most cells a subscribed frame may have after scaling. Viewers asking
+	 * for more are disconnected.
+	 */
+	public static final int MAX_FRAME_CELLS = 1 << 24;
+
+	private final ServerSocket serverSocket;
+	private final List<Client> clients = new CopyOnWriteArrayList<>();
+	private final LongAdder skippedFrames = new LongAdder();
+	private volatile boolean closed;
+
+	/**
+	 * Starts listening for viewers.
+	 *
+	 * @param port The port to listen on, or 0 for any free port.
+	 */
+	public FrameServer(int port) throws IOException {
+		this.serverSocket = new ServerSocket(port);
+		Thread acceptThread = new Thread(this::acceptClients, "frame-server");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	/**
+	 * Hands a generation to all connected viewers. Returns immediately.
+	 */
+	public void publish(BoardSnapshot snapshot) {
+		for (Client client : clients) {
+			client.offer(snapshot);
+		}
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public int getClientCount() {
+		return clients.size();
+	}
+
+	/**
+	 * @return The amount of generations that were replaced before a client was
+	 *         ready for them, over all clients.
+	 */
+	public long getSkippedFrames() {
+		return skippedFrames.sum();
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		serverSocket.close();
+		for (Client client : clients) {
+			client.close();
+		}
+	}
+
+	private void acceptClients() {
+		while (!closed) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				Client client = new Client(socket);
+				clients.add(client);
+				client.start();
+			} catch (IOException e) {
+				// The socket was closed, or a single connection failed.
+			}
+		}
+	}
+
+	/**
+	 * The region of the board a client displays.
+	 */
+	private static final class Subscription {
+		final int x, y, width, height, scale;
+
+		Subscription(int x, int y, int width, int height, int scale) {
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.scale = scale;
+		}
+
+		/**
+		 * @return The part of the region that lies on a board of the given size, or
+		 *         the whole board if none of it does.
+		 */
+		Subscription clamp(int rows, int columns) {
+			if (x >= rows || y >= columns) {
+				return new Subscription(0, 0, rows, columns, scale);
+			}
+			int clampedWidth = Math.min(width, rows - x);
+			int clampedHeight = Math.min(height, columns - y);
+			if (clampedWidth == width && clampedHeight == height) {
+				return this;
+			}
+			return new Subscription(x, y, clampedWidth, clampedHeight, scale);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Subscription)) {
+				return false;
+			}
+			Subscription that = (Subscription) other;
+			return x == that.x && y == that.y && width == that.width && height == that.height && scale == that.scale;
+		}
+
+		@Override
+		public int hashCode() {
+			return (((x * 31 + y) * 31 + width) * 31 + height) * 31 + scale;
+		}
+	}
+
+	private final class Client {
+		private final Socket socket;
+		private final DataInputStream in;
+		private final DataOutputStream out;
+		private final Object lock = new Object();
+		private BoardSnapshot pending;
+		private boolean disconnected; // Guarded by lock, no snapshots are retained once set
+		private volatile Subscription subscription;
+		private volatile boolean keyframeRequested = true;
+
+		// Only used by the writer thread
+		private Subscription sentSubscription;
+		private int sentRows, sentColumns;
+		private long[] sentBits;
+		private long[] bits = new long[0];
+		private int framesSinceKeyframe;
+		private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+		Client(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		void start() {
+			Thread reader = new Thread(this::readSubscriptions, "frame-server-reader");
+			reader.setDaemon(true);
+			reader.start();
+			Thread writer = new Thread(this::writeFrames, "frame-server-writer");
+			writer.setDaemon(true);
+			writer.start();
+		}
+
+		void offer(BoardSnapshot snapshot) {
+			synchronized (lock) {
+				if (disconnected) {
+					return;
+				}
+				if (pending != null) {
+					pending.release();
+					skippedFrames.increment();
+				}
+				pending = snapshot.retain();
+				lock.notifyAll();
+			}
+		}
+
+		void close() {
+			clients.remove(this);
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Already closed
+			}
+			synchronized (lock) {
+				disconnected = true;
+				if (pending != null) {
+					pending.release();
+					pending = null;
+				}
+				lock.notifyAll();
+			}
+		}
+
+		private void readSubscriptions() {
+			try {
+				while (true) {
+					byte type = in.readByte();
+					if (type != FrameCodec.SUBSCRIBE) {
+						throw new IOException("Unknown message type " + type);
+					}
+					int x = in.readInt();
+					int y = in.readInt();
+					int width = in.readInt();
+					int height = in.readInt();
+					int scale = in.readInt();
+					if (x < 0 || y < 0 || width <= 0 || height <= 0 || scale <= 0
+							|| (long) FrameCodec.frameSize(width, scale)
+									* FrameCodec.frameSize(height, scale) > MAX_FRAME_CELLS) {
+						throw new IOException("Invalid subscription");
+					}
+					subscription = new Subscription(x, y, width, height, scale);
+					keyframeRequested = true;
+				}
+			} catch (IOException e) {
+				close();
+			}
+		}
+
+		private void writeFrames() {
+			try {
+				while (!socket.isClosed()) {
+					BoardSnapshot snapshot;
+					synchronized (lock) {
+						while (pending == null && !disconnected) {
+							lock.wait();
+						}
+						snapshot = pending;
+						pending = null;
+					}
+					if (snapshot == null) {
+						return;
+					}
+					try {
+						writeFrame(snapshot);
+					} finally {
+						snapshot.release();
+					}
+				}
+			} catch (IOException e) {
+				close();
+			} catch (InterruptedException e) {
+				close();
+			}
+		}
+
+		private void writeFrame(BoardSnapshot snapshot) throws IOException {
+			Subscription region = subscription;
+			if (region == null) {
+				region = new Subscription(0, 0, snapshot.getRows(), snapshot.getColumns(), 1);
+			} else {
+				region = region.clamp(snapshot.getRows(), snapshot.getColumns());
+			}
+			int count = FrameCodec.frameSize(region.width, region.scale)
+					* FrameCodec.frameSize(region.height, region.scale);
+			int words = (count + 63) >>> 6;
+			if (bits.length != words) {
+				bits = new long[words];
+			}
+			FrameCodec.sample(snapshot, region.x, region.y, region.width, region.height, region.scale, bits);
+
+			boolean keyframe = keyframeRequested || sentBits == null || !region.equals(sentSubscription)
+					|| snapshot.getRows() != sentRows || snapshot.getColumns() != sentColumns
+					|| framesSinceKeyframe >= KEYFRAME_INTERVAL;
+			keyframeRequested = false;
+
+			payload.reset();
+			if (keyframe) {
+				FrameCodec.encodeRuns(bits, count, payload);
+				framesSinceKeyframe = 0;
+			} else {
+				for (int w = 0; w < words; w++) {
+					sentBits[w] ^= bits[w];
+				}
+				FrameCodec.encodeRuns(sentBits, count, payload);
+				framesSinceKeyframe++;
+			}
+
+			out.writeByte(keyframe ? FrameCodec.KEYFRAME : FrameCodec.DELTA);
+			out.writeLong(snapshot.getGeneration());
+			out.writeInt(snapshot.getRows());
+			out.writeInt(snapshot.getColumns());
+			out.writeInt(region.x);
+			out.writeInt(region.y);
+			out.writeInt(region.width);
+			out.writeInt(region.height);
+			out.writeInt(region.scale);
+			out.writeInt(payload.size());
+			payload.writeTo(out);
+			out.flush();
+
+			// Keep the frame just sent to diff the next one against.
+			long[] swap = sentBits != null && sentBits.length == words ? sentBits : new long[words];
+			sentBits = bits;
+			bits = swap;
+			sentSubscription = region;
+			sentRows = snapshot.getRows();
+			sentColumns = snapshot.getColumns();
+		}
+	}
+}
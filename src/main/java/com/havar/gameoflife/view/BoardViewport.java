@@ -0,0 +1,278 @@
+package com.havar.gameoflife.view;
+
+import java.util.Arrays;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.DensityPyramid;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.paint.Color;
+
+/**
+ * Zoomable and pannable canvas that draws the board.
+ *
+ * Every frame is drawn pixel by pixel into an image the size of the canvas, so
+ * the cost of a frame depends on the screen size and not on the board size.
+ * When a screen pixel covers a single cell or less, the cell under the pixel is
+ * drawn. When zoomed further out, the block counts of the
+ * {@link DensityPyramid} are used and each pixel is shaded by the density of
+ * the block it covers.
+ *
+ * Scroll to zoom around the mouse position, drag with the middle mouse button
+ * to pan.
+ *
+ * @author Havar Ameen
+ */
+public class BoardViewport extends Canvas {
+	private static final double MAX_SCALE = 64.0;
+	private static final double ZOOM_STEP = 1.25;
+	private static final int OUTSIDE_ARGB = 0xff000000;
+
+	private final int width, height;
+	private final WritableImage image;
+	private final int[] pixels;
+	private final int[] xIndices;
+	private final int[] shades = new int[256];
+	private final Color aliveColor, deadColor;
+	private int[] statePalette = new int[0];
+
+	private int boardRows, boardColumns;
+	private double fitScale;
+	private double scale; // Screen pixels per cell
+	private double originX, originY; // Board position of the top left corner
+	private BoardSnapshot snapshot;
+	private DensityPyramid densityPyramid;
+	private double dragX, dragY;
+
+	public BoardViewport(int width, int height, Color aliveColor, Color deadColor) {
+		super(width, height);
+		this.width = width;
+		this.height = height;
+		this.image = new WritableImage(width, height);
+		this.pixels = new int[width * height];
+		this.xIndices = new int[width];
+		this.aliveColor = aliveColor;
+		this.deadColor = deadColor;
+		for (int i = 0; i < shades.length; i++) {
+			shades[i] = toArgb(deadColor.interpolate(aliveColor, i / 255.0));
+		}
+
+		addEventHandler(ScrollEvent.SCROLL, event -> {
+			zoom(event.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP, event.getX(), event.getY());
+		});
+		addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+			if (event.isMiddleButtonDown()) {
+				dragX = event.getX();
+				dragY = event.getY();
+			}
+		});
+		addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+			if (event.isMiddleButtonDown()) {
+				pan(event.getX() - dragX, event.getY() - dragY);
+				dragX = event.getX();
+				dragY = event.getY();
+			}
+		});
+	}
+
+	/**
+	 * Sets the size of the board and zooms out to show all of it.
+	 */
+	public void setBoardSize(int rows, int columns) {
+		if (rows <= 0 || columns <= 0) {
+			throw new IllegalArgumentException("The board size needs to be positive.");
+		}
+		this.boardRows = rows;
+		this.boardColumns = columns;
+		this.fitScale = Math.min((double) width / rows, (double) height / columns);
+		this.scale = fitScale;
+		this.originX = 0;
+		this.originY = 0;
+		show(null, null);
+	}
+
+	/**
+	 * Draws the given generation. The viewport keeps a reference to the snapshot
+	 * so it can redraw it when zooming or panning, and releases it when the next
+	 * one arrives.
+	 *
+	 * @param snapshot       The generation to draw.
+	 * @param densityPyramid Block counts of the same board, or null to always
+	 *                       sample the cells.
+	 */
+	public void show(BoardSnapshot snapshot, DensityPyramid densityPyramid) {
+		if (snapshot != null) {
+			snapshot.retain();
+		}
+		if (this.snapshot != null) {
+			this.snapshot.release();
+		}
+		this.snapshot = snapshot;
+		this.densityPyramid = densityPyramid;
+		render();
+	}
+
+	/**
+	 * Paints a single cell directly, without waiting for the next frame.
+	 */
+	public void paintCell(int row, int col, boolean alive) {
+		double x = (row - originX) * scale;
+		double y = (col - originY) * scale;
+		getGraphicsContext2D().setFill(alive ? aliveColor : deadColor);
+		getGraphicsContext2D().fillRect(x, y, Math.max(scale, 1), Math.max(scale, 1));
+	}
+
+	/**
+	 * Zooms in or out while keeping the board position under the given screen
+	 * position in place.
+	 */
+	public void zoom(double factor, double x, double y) {
+		double boardX = originX + x / scale;
+		double boardY = originY + y / scale;
+		scale = Math.max(fitScale, Math.min(MAX_SCALE, scale * factor));
+		originX = boardX - x / scale;
+		originY = boardY - y / scale;
+		clampOrigin();
+		render();
+	}
+
+	/**
+	 * Moves the board by the given amount of screen pixels.
+	 */
+	public void pan(double dx, double dy) {
+		originX -= dx / scale;
+		originY -= dy / scale;
+		clampOrigin();
+		render();
+	}
+
+	/**
+	 * @return The first board index under the given screen x-coordinate.
+	 */
+	public int toBoardRow(double x) {
+		return (int) Math.floor(originX + x / scale);
+	}
+
+	/**
+	 * @return The second board index under the given screen y-coordinate.
+	 */
+	public int toBoardColumn(double y) {
+		return (int) Math.floor(originY + y / scale);
+	}
+
+	public double getScale() {
+		return scale;
+	}
+
+	private void clampOrigin() {
+		originX = Math.max(0, Math.min(originX, boardRows - width / scale));
+		originY = Math.max(0, Math.min(originY, boardColumns - height / scale));
+	}
+
+	private void render() {
+		if (snapshot == null || snapshot.getRows() != boardRows || snapshot.getColumns() != boardColumns) {
+			Arrays.fill(pixels, OUTSIDE_ARGB);
+		} else {
+			int level = 0;
+			while ((1 << level) < 1 / scale) {
+				level++;
+			}
+
+			for (int px = 0; px < width; px++) {
+				int row = (int) Math.floor(originX + (px + 0.5) / scale);
+				xIndices[px] = row < boardRows ? row : -1;
+			}
+
+			if (densityPyramid != null && level >= DensityPyramid.MIN_LEVEL
+					&& densityPyramid.getRows() == boardRows && densityPyramid.getColumns() == boardColumns) {
+				renderDensity(level);
+			} else {
+				renderCells();
+			}
+		}
+
+		image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0,
+				width);
+		getGraphicsContext2D().drawImage(image, 0, 0);
+	}
+
+	private void renderCells() {
+		if (snapshot.hasStates()) {
+			renderStates();
+			return;
+		}
+		int alive = shades[255];
+		int dead = shades[0];
+		for (int py = 0; py < height; py++) {
+			int col = (int) Math.floor(originY + (py + 0.5) / scale);
+			int offset = py * width;
+			for (int px = 0; px < width; px++) {
+				int row = xIndices[px];
+				if (row < 0 || col >= boardColumns) {
+					pixels[offset + px] = OUTSIDE_ARGB;
+				} else {
+					pixels[offset + px] = snapshot.isAlive(row, col) ? alive : dead;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws a board with dying cells, which fade from the alive colour towards the
+	 * dead colour as they get closer to the dead state.
+	 */
+	private void renderStates() {
+		int stateCount = snapshot.getStateCount();
+		if (statePalette.length != stateCount) {
+			statePalette = new int[stateCount];
+			statePalette[0] = shades[0];
+			statePalette[1] = shades[255];
+			for (int state = 2; state < stateCount; state++) {
+				// Keep dying cells visibly apart from both live and dead cells.
+				statePalette[state] = shades[160 - 128 * (state - 2) / Math.max(1, stateCount - 2)];
+			}
+		}
+		for (int py = 0; py < height; py++) {
+			int col = (int) Math.floor(originY + (py + 0.5) / scale);
+			int offset = py * width;
+			for (int px = 0; px < width; px++) {
+				int row = xIndices[px];
+				if (row < 0 || col >= boardColumns) {
+					pixels[offset + px] = OUTSIDE_ARGB;
+				} else {
+					pixels[offset + px] = statePalette[snapshot.getState(row, col)];
+				}
+			}
+		}
+	}
+
+	private void renderDensity(int level) {
+		long blockArea = 1L << (2 * level);
+		for (int py = 0; py < height; py++) {
+			int col = (int) Math.floor(originY + (py + 0.5) / scale);
+			int offset = py * width;
+			for (int px = 0; px < width; px++) {
+				int row = xIndices[px];
+				if (row < 0 || col >= boardColumns) {
+					pixels[offset + px] = OUTSIDE_ARGB;
+				} else {
+					int count = densityPyramid.getCount(level, row >> level, col >> level);
+					// Settled boards rarely exceed a quarter of live cells, so full colour is
+					// reached at that density. Counts may briefly run ahead of the snapshot,
+					// so the shade is clamped as well.
+					int shade = (int) Math.min(255L, Math.max(0L, count * 255L * 4 / blockArea));
+					pixels[offset + px] = shades[shade];
+				}
+			}
+		}
+	}
+
+	private static int toArgb(Color color) {
+		return 0xff000000 | ((int) Math.round(color.getRed() * 255) << 16)
+				| ((int) Math.round(color.getGreen() * 255) << 8) | (int) Math.round(color.getBlue() * 255);
+	}
+}
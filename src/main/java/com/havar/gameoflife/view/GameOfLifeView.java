@@ -1,20 +1,23 @@
 package com.havar.gameoflife.view;
 
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.DensityPyramid;
+import com.havar.gameoflife.model.rules.Rule;
+
 import javafx.geometry.Orientation;
 
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
 import javafx.scene.control.Slider;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.SpinnerValueFactory;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 
 /**
  * The view class for the Game of Life.
@@ -23,37 +26,36 @@ import javafx.scene.shape.Rectangle;
  */
 public class GameOfLifeView extends AnchorPane {
 	private final int DEFAULT_GRID_SIZE = 100;
-	private final double DEFAULT_GRID_WIDTH = 1000.0;
+	private final int DEFAULT_GRID_WIDTH = 1000;
 	private final Color ALIVE_COLOR = Color.web("#00abf4");
 	private final Color DEAD_COLOR = Color.web("#072232");
 
-	private GridPane gridPane;
+	private BoardViewport viewport;
 	private int currentGridSize;
-	private double cellSize;
 	private Slider sizeSlider;
 	private Spinner<Integer> delaySpinner;
 	private CheckBox wrapAroundBox;
+	private ComboBox<Rule> ruleBox;
 
 	private Label sizeLabel = new Label("Grid size");
 	private Label delayLabel = new Label("Delay (ms)");
+	private Label censusLabel = new Label();
 	private AnchorPane controlPane = new AnchorPane();
 	private Button startButton = new Button("Start");
 	private Button stopButton = new Button("Stop");
+	private Button backButton = new Button("Back");
+	private Button forwardButton = new Button("Forward");
 	private Button clearButton = new Button("Clear grid");
 	private Button regenButton = new Button("Regenerate grid");
 
-	private boolean resizing = false;
-
 	/**
 	 * Creates a new GameOfLifeView object with the given cells.
 	 *
 	 */
 	public GameOfLifeView() {
 		this.currentGridSize = DEFAULT_GRID_SIZE;
-		this.cellSize = DEFAULT_GRID_WIDTH / currentGridSize; // Using a 1000x1000 pane, adjust each cellsize to make
-																// use of available space accordingly.
 
-		setTopAnchor(createGridPane(), 0.0);
+		setTopAnchor(createViewport(), 0.0);
 		setBottomAnchor(createControlPane(), 0.0);
 	}
 
@@ -68,9 +70,9 @@ public class GameOfLifeView extends AnchorPane {
 		AnchorPane.setLeftAnchor(controlPane, 10.0);
 		AnchorPane.setRightAnchor(controlPane, 10.0);
 
-		sizeSlider = new Slider(10, 200, DEFAULT_GRID_SIZE);
-		sizeSlider.setMajorTickUnit(20);
-		sizeSlider.setMinorTickCount(10);
+		sizeSlider = new Slider(10, 2000, DEFAULT_GRID_SIZE);
+		sizeSlider.setMajorTickUnit(200);
+		sizeSlider.setMinorTickCount(9);
 		sizeSlider.setBlockIncrement(100);
 		sizeSlider.setShowTickMarks(true);
 		sizeSlider.setShowTickLabels(true);
@@ -81,19 +83,25 @@ public class GameOfLifeView extends AnchorPane {
 		delaySpinner.setEditable(true);
 
 		wrapAroundBox = new CheckBox("Wrap around");
+		ruleBox = new ComboBox<Rule>();
 
-		HBox buttonBox = new HBox(startButton, stopButton, new Separator(Orientation.VERTICAL), delayLabel,
+		HBox buttonBox = new HBox(startButton, stopButton, backButton, forwardButton,
+				new Separator(Orientation.VERTICAL), delayLabel,
 				delaySpinner, new Separator(Orientation.VERTICAL), clearButton, regenButton,
-				new Separator(Orientation.VERTICAL), wrapAroundBox);
+				new Separator(Orientation.VERTICAL), wrapAroundBox, ruleBox);
 		buttonBox.setSpacing(10);
 		buttonBox.setAlignment(Pos.BOTTOM_CENTER);
 
-		controlPane.getChildren().addAll(sizeLabel, sizeSlider, buttonBox);
+		controlPane.getChildren().addAll(sizeLabel, sizeSlider, censusLabel, buttonBox);
 
 		AnchorPane.setTopAnchor(sizeSlider, 10.0);
 		AnchorPane.setLeftAnchor(sizeSlider, 50.0);
 		AnchorPane.setRightAnchor(sizeSlider, 10.0);
 
+		AnchorPane.setTopAnchor(censusLabel, 45.0);
+		AnchorPane.setLeftAnchor(censusLabel, 10.0);
+		AnchorPane.setRightAnchor(censusLabel, 10.0);
+
 		AnchorPane.setBottomAnchor(buttonBox, 10.0);
 		AnchorPane.setLeftAnchor(buttonBox, 10.0);
 		AnchorPane.setRightAnchor(buttonBox, 10.0);
@@ -105,23 +113,16 @@ public class GameOfLifeView extends AnchorPane {
 	}
 
 	/**
-	 * Creates the grid pane and adds it to the view.
+	 * Creates the board viewport and adds it to the view. The viewport is 1000x1000
+	 * pixels and zooms to fit the grid size.
 	 * 
-	 * @return The created GridPane
+	 * @return The created BoardViewport
 	 */
-	private GridPane createGridPane() {
-		this.gridPane = new GridPane();
-		gridPane.setSnapToPixel(false);
-		gridPane.setStyle("-fx-background-color: black;");
-		for (int i = 0; i < currentGridSize; i++) {
-			for (int j = 0; j < currentGridSize; j++) {
-				Rectangle cell = new Rectangle(cellSize, cellSize);
-				cell.setFill(DEAD_COLOR);
-				gridPane.add(cell, i, j);
-			}
-		}
-		getChildren().add(gridPane);
-		return gridPane;
+	private BoardViewport createViewport() {
+		this.viewport = new BoardViewport(DEFAULT_GRID_WIDTH, DEFAULT_GRID_WIDTH, ALIVE_COLOR, DEAD_COLOR);
+		viewport.setBoardSize(currentGridSize, currentGridSize);
+		getChildren().add(viewport);
+		return viewport;
 	}
 
 	/**
@@ -136,42 +137,31 @@ public class GameOfLifeView extends AnchorPane {
 			throw new IllegalArgumentException("Invalid value entered for the row or column position.");
 		}
 
-		Rectangle cell = (Rectangle) gridPane.getChildren().get(row * currentGridSize + col);
-		if (alive) {
-			cell.setFill(ALIVE_COLOR);
-		} else {
-			cell.setFill(DEAD_COLOR);
-		}
+		viewport.paintCell(row, col, alive);
 	}
 
 	/**
-	 * Updates the board to reflect the current state of the cells. This marks each
-	 * cell as either alive or dead.
+	 * Updates the board to reflect the current state of the cells.
+	 * 
+	 * @param snapshot       The generation to show.
+	 * @param densityPyramid Block counts of the same board used when zoomed out, or
+	 *                       null if the snapshot is not the live board.
 	 */
-	public void updateBoard(boolean[][] cells) {
-		currentGridSize = cells.length;
-
-		for (int i = 0; i < currentGridSize; i++) {
-			for (int j = 0; j < currentGridSize; j++) {
-				if (!isResizing()) {
-					Rectangle cell = null;
-					try {
-						cell = (Rectangle) gridPane.getChildren().get(i * currentGridSize + j);
-						if (cells[i][j]) {
-							cell.setFill(ALIVE_COLOR);
-						} else {
-							cell.setFill(DEAD_COLOR);
-						}
-					} catch (IndexOutOfBoundsException e) {
-					}
-				}
-			}
-		}
+	public void updateBoard(BoardSnapshot snapshot, DensityPyramid densityPyramid) {
+		viewport.show(snapshot, densityPyramid);
+	}
+
+	/**
+	 * Shows the outcome of the latest pattern census below the size slider.
+	 * 
+	 * @param summary The object counts as text.
+	 */
+	public void showCensus(String summary) {
+		censusLabel.setText(summary);
 	}
 
 	/**
-	 * Resizes the board and calculates the new size of the cells based on the new
-	 * grid size.
+	 * Resizes the board and zooms the viewport out to fit the new grid size.
 	 * 
 	 * @param cells
 	 */
@@ -180,25 +170,16 @@ public class GameOfLifeView extends AnchorPane {
 			throw new IllegalArgumentException("The grid size needs to be positive.");
 		}
 
-		resizing = true;
-		gridPane.getChildren().clear();
-		getChildren().remove(gridPane);
 		this.currentGridSize = gridSize;
-		this.cellSize = DEFAULT_GRID_WIDTH / gridSize;
-		createGridPane();
-		resizing = false;
-	}
-
-	public double getCellSize() {
-		return cellSize;
+		viewport.setBoardSize(gridSize, gridSize);
 	}
 
 	public int getGridSize() {
 		return currentGridSize;
 	}
 
-	public GridPane getGridPane() {
-		return gridPane;
+	public BoardViewport getViewport() {
+		return viewport;
 	}
 
 	public Button getStartButton() {
@@ -209,12 +190,16 @@ public class GameOfLifeView extends AnchorPane {
 		return stopButton;
 	}
 
-	public Slider getSizeSlider() {
-		return sizeSlider;
+	public Button getBackButton() {
+		return backButton;
 	}
 
-	public boolean isResizing() {
-		return resizing;
+	public Button getForwardButton() {
+		return forwardButton;
+	}
+
+	public Slider getSizeSlider() {
+		return sizeSlider;
 	}
 
 	public Spinner<Integer> getDelaySpinner() {
@@ -233,6 +218,10 @@ public class GameOfLifeView extends AnchorPane {
 		return wrapAroundBox;
 	}
 
+	public ComboBox<Rule> getRuleBox() {
+		return ruleBox;
+	}
+
 	public void setWrapAroundBox(CheckBox wrapAroundBox) {
 		this.wrapAroundBox = wrapAroundBox;
 	}
@@ -0,0 +1,115 @@
+package com.havar.gameoflife.export;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import org.junit.Test;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameExporterTest {
+    private static final int SIZE = 96;
+    private static final int GENERATIONS = 40;
+
+    /**
+     * Decoding the GIF and drawing every frame on top of the previous one should give back every generation.
+     */
+    @Test
+    public void testGifFramesDecodeToGenerations() throws Exception {
+        List<boolean[][]> expected = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameOfLifeLogic gameOfLife = exportRandomBoard(new GifFrameSink(out, SIZE, SIZE, 5, 0xffffff, 0x000000),
+                expected);
+        assertEquals(GENERATIONS, gameOfLife.getGeneration());
+
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            reader.setInput(in);
+            assertEquals(GENERATIONS + 1, reader.getNumImages(true));
+
+            boolean[][] canvas = new boolean[SIZE][SIZE];
+            for (int i = 0; i <= GENERATIONS; i++) {
+                BufferedImage image = reader.read(i);
+                Node root = reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+                NamedNodeMap descriptor = child(root, "ImageDescriptor").getAttributes();
+                int left = Integer.parseInt(descriptor.getNamedItem("imageLeftPosition").getNodeValue());
+                int top = Integer.parseInt(descriptor.getNamedItem("imageTopPosition").getNodeValue());
+                for (int x = 0; x < image.getWidth(); x++) {
+                    for (int y = 0; y < image.getHeight(); y++) {
+                        canvas[left + x][top + y] = (image.getRGB(x, y) & 0xffffff) == 0xffffff;
+                    }
+                }
+                assertArrayEquals("Generation " + i, expected.get(i), canvas);
+            }
+        }
+    }
+
+    /**
+     * The raw format should hold every generation as packed words.
+     */
+    @Test
+    public void testRawFramesHoldGenerations() throws Exception {
+        List<boolean[][]> expected = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportRandomBoard(new RawFrameSink(out, SIZE, SIZE), expected);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(RawFrameSink.MAGIC, in.readInt());
+        assertEquals(SIZE, in.readInt());
+        assertEquals(SIZE, in.readInt());
+        int wordsPerRow = in.readInt();
+        for (int i = 0; i <= GENERATIONS; i++) {
+            assertEquals(i, in.readLong());
+            long[] words = new long[SIZE * wordsPerRow];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = in.readLong();
+            }
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    assertEquals(expected.get(i)[x][y], (words[x * wordsPerRow + (y >>> 6)] >>> y & 1L) != 0);
+                }
+            }
+        }
+        assertEquals(-1, in.read());
+    }
+
+    private static GameOfLifeLogic exportRandomBoard(FrameSink sink, List<boolean[][]> expected)
+            throws IOException, InterruptedException {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(SIZE, SIZE);
+        gameOfLife.generateRandomBoard();
+        GameOfLifeLogic copy = new GameOfLifeLogic(SIZE, SIZE);
+        BoardSnapshot initial = gameOfLife.snapshot();
+        copy.setCells(initial.copyCells());
+        initial.release();
+
+        FrameExporter.export(gameOfLife, GENERATIONS, sink, 4);
+        for (int i = 0; i <= GENERATIONS; i++) {
+            BoardSnapshot snapshot = copy.snapshot();
+            expected.add(snapshot.copyCells());
+            snapshot.release();
+            copy.nextIteration();
+        }
+        return gameOfLife;
+    }
+
+    private static Node child(Node node, String name) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeName().equals(name)) {
+                return child;
+            }
+        }
+        throw new AssertionError("Missing " + name);
+    }
+}
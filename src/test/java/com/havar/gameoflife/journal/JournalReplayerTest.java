@@ -0,0 +1,185 @@
+package com.havar.gameoflife.journal;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import com.havar.gameoflife.model.IGameOfLife;
+import com.havar.gameoflife.model.LookAheadBuffer;
+import com.havar.gameoflife.model.rules.ConwayRule;
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import com.havar.gameoflife.model.rules.LargerThanLifeRule;
+import com.havar.gameoflife.model.rules.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class JournalReplayerTest {
+
+    /**
+     * Replaying the journal of a run with edits, random boards, rule changes and rewinds should end on exactly the
+     * same board and generation.
+     */
+    @Test
+    public void testReplayReproducesRun() throws IOException {
+        Path path = Files.createTempFile("gameoflife", ".journal");
+        try {
+            GameOfLifeLogic model = new GameOfLifeLogic(60, 60);
+            JournaledGameOfLife journaled = new JournaledGameOfLife(model, new Journal(path));
+            journaled.generateRandomBoard(11, 0.4);
+            BoardSnapshot rewindTo = null;
+            for (int generation = 1; generation <= 300; generation++) {
+                journaled.nextIteration();
+                if (generation % 17 == 0) {
+                    journaled.setCellState(generation % 48, 7, true);
+                }
+                if (generation == 40) {
+                    rewindTo = journaled.snapshot();
+                }
+                if (generation == 60) {
+                    applyRule(journaled, LargerThanLifeRule.parse(LargerThanLifeRule.BOSCO, "Bosco"), true);
+                }
+                if (generation == 90) {
+                    journaled.restore(rewindTo);
+                    rewindTo.release();
+                    applyRule(journaled, GenerationsRule.parse(GenerationsRule.BRIANS_BRAIN, "Brian's Brain"), false);
+                }
+                if (generation == 150) {
+                    journaled.clearBoard();
+                    journaled.resizeGrid(48);
+                    applyRule(journaled, new ConwayRule(), true);
+                    journaled.generateRandomBoard();
+                }
+            }
+            journaled.close();
+
+            GameOfLifeLogic replayed = new GameOfLifeLogic(60, 60);
+            new JournalReplayer(path).replay(replayed);
+            assertEquals(model.getGeneration(), replayed.getGeneration());
+            assertArrayEquals(model.getCells(), replayed.getCells());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Edits made on another thread while the model is stepped should be recorded at the generation they were applied
+     * to, so the replay still ends on the same board.
+     */
+    @Test
+    public void testReplayReproducesEditsFromAnotherThread() throws Exception {
+        Path path = Files.createTempFile("gameoflife", ".journal");
+        try {
+            GameOfLifeLogic model = new GameOfLifeLogic(60, 60);
+            JournaledGameOfLife journaled = new JournaledGameOfLife(model, new Journal(path));
+            journaled.generateRandomBoard(5, 0.3);
+            AtomicBoolean stepping = new AtomicBoolean(true);
+            Thread editor = new Thread(() -> {
+                for (int i = 0; stepping.get(); i++) {
+                    journaled.setCellState(i * 7 % 60, i * 13 % 60, i % 2 == 0);
+                    if (i % 500 == 0) {
+                        // Read and write back in one go, so no generation is stepped in between.
+                        synchronized (journaled) {
+                            BoardSnapshot snapshot = journaled.snapshot();
+                            journaled.setCells(snapshot.copyCells());
+                            snapshot.release();
+                        }
+                    }
+                }
+            });
+            editor.start();
+            try {
+                for (int generation = 0; generation < 2000; generation++) {
+                    journaled.nextIteration();
+                }
+            } finally {
+                stepping.set(false);
+                editor.join();
+            }
+            journaled.close();
+            assertTrue(journaled.getJournal().getRecords() > 2);
+
+            GameOfLifeLogic replayed = new GameOfLifeLogic(60, 60);
+            new JournalReplayer(path).replay(replayed);
+            assertEquals(model.getGeneration(), replayed.getGeneration());
+            assertArrayEquals(model.getCells(), replayed.getCells());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Edits through a look-ahead buffer should not record its rewinds, and a run ended after closing the buffer should
+     * replay to the frame that was on display.
+     */
+    @Test
+    public void testLookAheadRewindsAreNotRecorded() throws Exception {
+        Path path = Files.createTempFile("gameoflife", ".journal");
+        try {
+            GameOfLifeLogic model = new GameOfLifeLogic(60, 60);
+            model.generateRandomBoard(3, 0.4);
+            JournaledGameOfLife journaled = new JournaledGameOfLife(model, new Journal(path));
+            LookAheadBuffer lookAhead = new LookAheadBuffer(journaled, 8);
+            for (int edit = 0; edit < 5; edit++) {
+                for (int frame = 0; frame < 10; frame++) {
+                    lookAhead.take().release();
+                }
+                int row = edit * 11;
+                lookAhead.edit(m -> m.setCellState(row, row, true));
+            }
+            lookAhead.take().release();
+            BoardSnapshot displayed = lookAhead.getDisplayed();
+            lookAhead.close();
+            assertEquals(displayed.getGeneration(), journaled.getGeneration());
+            journaled.close();
+            // The first board, the edits and the end.
+            assertEquals(7, journaled.getJournal().getRecords());
+
+            GameOfLifeLogic replayed = new GameOfLifeLogic(60, 60);
+            new JournalReplayer(path).replay(replayed);
+            assertEquals(displayed.getGeneration(), replayed.getGeneration());
+            assertArrayEquals(displayed.copyCells(), replayed.getCells());
+            displayed.release();
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Records should keep going past the first mapped chunk of the file.
+     */
+    @Test
+    public void testJournalGrowsPastChunk() throws IOException {
+        Path path = Files.createTempFile("gameoflife", ".journal");
+        try {
+            GameOfLifeLogic model = new GameOfLifeLogic(64, 64);
+            Journal journal = new Journal(path);
+            try (JournaledGameOfLife journaled = new JournaledGameOfLife(model, journal)) {
+                for (int i = 0; i < 100_000; i++) {
+                    journaled.setCellState(i % 64, i / 64 % 64, i % 3 == 0);
+                    if (i % 1000 == 0) {
+                        journaled.nextIteration();
+                    }
+                }
+            }
+            assertEquals(journal.getLength(), Files.size(path));
+            assertTrue(journal.getLength() > 1 << 20);
+
+            GameOfLifeLogic replayed = new GameOfLifeLogic(64, 64);
+            JournalReplayer replayer = new JournalReplayer(path);
+            replayer.replay(replayed);
+            assertEquals(journal.getRecords(), replayer.getRecords());
+            assertArrayEquals(model.getCells(), replayed.getCells());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void applyRule(IGameOfLife model, Rule rule, boolean wrapAround) {
+        model.setRule(rule);
+        model.setNeighborCountingStrategy(rule.createNeighborCountingStrategy(wrapAround));
+    }
+}
@@ -0,0 +1,124 @@
+package com.havar.gameoflife.model;
+
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithWrapAroundStrategy;
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveGameOfLifeTest {
+
+    /**
+     * The sparse and parallel engines should compute exactly the same generations as the regular engine, also while
+     * snapshots are held and cells are edited in between.
+     */
+    @Test
+    public void testEnginesMatchGameOfLifeLogic() {
+        GameOfLifeLogic expected = new GameOfLifeLogic(70, 70);
+        expected.setNeighborCountingStrategy(new CountNeighborsWithWrapAroundStrategy());
+        expected.generateRandomBoard();
+
+        GameOfLifeLogic[] engines = { new SparseGameOfLifeLogic(70, 70), new ParallelGameOfLifeLogic(70, 70) };
+        for (GameOfLifeLogic engine : engines) {
+            engine.setNeighborCountingStrategy(new CountNeighborsWithWrapAroundStrategy());
+            engine.setCells(copyCells(expected));
+        }
+
+        for (int generation = 1; generation <= 200; generation++) {
+            expected.nextIteration();
+            if (generation % 50 == 0) {
+                expected.setCellState(10, 10, true);
+            }
+            for (GameOfLifeLogic engine : engines) {
+                BoardSnapshot held = generation % 7 == 0 ? engine.snapshot() : null;
+                engine.nextIteration();
+                if (generation % 50 == 0) {
+                    engine.setCellState(10, 10, true);
+                }
+                if (held != null) {
+                    held.release();
+                }
+                assertArrayEquals(expected.getCells(), engine.getCells());
+                assertEquals(expected.getDensityPyramid().getPopulation(), engine.getDensityPyramid().getPopulation());
+            }
+        }
+    }
+
+    /**
+     * A single glider on an otherwise empty board should be moved to the sparse engine, without changing the board.
+     */
+    @Test
+    public void testSparseBoardMovesToSparseEngine() {
+        AdaptiveGameOfLife adaptive = new AdaptiveGameOfLife(100, 100);
+        GameOfLifeLogic expected = new GameOfLifeLogic(100, 100);
+        int[][] glider = { { 1, 0 }, { 2, 1 }, { 0, 2 }, { 1, 2 }, { 2, 2 } };
+        for (int[] cell : glider) {
+            adaptive.setCellState(cell[0], cell[1], true);
+            expected.setCellState(cell[0], cell[1], true);
+        }
+
+        for (int i = 0; i < AdaptiveGameOfLife.SAMPLE_INTERVAL + 10; i++) {
+            adaptive.nextIteration();
+            expected.nextIteration();
+        }
+        assertEquals(AdaptiveGameOfLife.Engine.SPARSE, adaptive.getEngineType());
+        assertEquals(expected.getGeneration(), adaptive.getGeneration());
+        assertArrayEquals(expected.getCells(), adaptive.getCells());
+    }
+
+    /**
+     * Rules with more than two states should move the board to the Generations engine and back.
+     */
+    @Test
+    public void testMultiStateRuleMovesToGenerationsEngine() {
+        AdaptiveGameOfLife adaptive = new AdaptiveGameOfLife(20, 20);
+        adaptive.generateRandomBoard();
+        boolean[][] cells = copyCells(adaptive);
+
+        adaptive.setRule(GenerationsRule.parse(GenerationsRule.BRIANS_BRAIN, null));
+        assertEquals(AdaptiveGameOfLife.Engine.GENERATIONS, adaptive.getEngineType());
+        assertArrayEquals(cells, adaptive.getCells());
+
+        adaptive.setRule(GenerationsRule.parse("B3/S23/C2", null));
+        assertEquals(AdaptiveGameOfLife.Engine.DENSE, adaptive.getEngineType());
+        assertArrayEquals(cells, adaptive.getCells());
+    }
+
+    /**
+     * Edits made from another thread while the board is stepped and moved between engines should never be lost. With
+     * a rule where every cell survives and none is born, every edited cell must still be alive at the end.
+     */
+    @Test
+    public void testEditsDuringSwitchesAreKept() throws Exception {
+        AdaptiveGameOfLife adaptive = new AdaptiveGameOfLife(100, 100);
+        adaptive.setRule(GenerationsRule.parse("B/S012345678/C2", null));
+        AtomicBoolean stepping = new AtomicBoolean(true);
+        Thread editor = new Thread(() -> {
+            do {
+                for (int i = 0; i < 100 * 100; i += 7) {
+                    adaptive.setCellState(i / 100, i % 100, true);
+                }
+            } while (stepping.get());
+        });
+        editor.start();
+        for (int i = 0; i < 4 * AdaptiveGameOfLife.SAMPLE_INTERVAL; i++) {
+            adaptive.nextIteration();
+        }
+        stepping.set(false);
+        editor.join();
+
+        boolean[][] cells = copyCells(adaptive);
+        for (int i = 0; i < 100 * 100; i += 7) {
+            assertTrue("Cell " + i, cells[i / 100][i % 100]);
+        }
+    }
+
+    private static boolean[][] copyCells(IGameOfLife gameOfLife) {
+        BoardSnapshot snapshot = gameOfLife.snapshot();
+        boolean[][] cells = snapshot.copyCells();
+        snapshot.release();
+        return cells;
+    }
+}
@@ -321,4 +321,95 @@ public class GameOfLifeLogicTest {
         assertEquals(4, countBottomRight);
         assertEquals(5, countAlmostTopRight);
     }
-}
\ No newline at end of file
+
+    /**
+     * A retained snapshot must keep showing its generation while the board is stepped and edited.
+     */
+    @Test
+    public void testSnapshotIsStableWhileRetained() {
+        GameOfLifeLogic gameOflife = new GameOfLifeLogic(5, 5);
+        gameOflife.setCellState(2, 1, true);
+        gameOflife.setCellState(2, 2, true);
+        gameOflife.setCellState(2, 3, true);
+
+        BoardSnapshot snapshot = gameOflife.snapshot();
+        assertEquals(0, snapshot.getGeneration());
+
+        gameOflife.setCellState(0, 0, true);
+        assertFalse(snapshot.isAlive(0, 0));
+
+        gameOflife.nextIteration();
+        gameOflife.nextIteration();
+        gameOflife.nextIteration();
+        assertTrue(snapshot.isAlive(2, 1));
+        assertFalse(snapshot.isAlive(1, 2));
+        assertEquals(3, snapshot.getPopulation());
+        assertEquals(3, gameOflife.getGeneration());
+        snapshot.release();
+    }
+
+    /**
+     * Taking a snapshot of an unchanged generation should hand out the same storage instead of a copy.
+     */
+    @Test
+    public void testSnapshotSharesStorageWithinGeneration() {
+        GameOfLifeLogic gameOflife = new GameOfLifeLogic(5, 5);
+        BoardSnapshot first = gameOflife.snapshot();
+        BoardSnapshot second = gameOflife.snapshot();
+        assertSame(first, second);
+        first.release();
+        second.release();
+
+        gameOflife.nextIteration();
+        BoardSnapshot third = gameOflife.snapshot();
+        assertNotSame(first, third);
+        assertEquals(1, third.getGeneration());
+        third.release();
+    }
+
+    /**
+     * The incrementally updated density pyramid should match one rebuilt from scratch.
+     */
+    @Test
+    public void testDensityPyramidTracksBoard() {
+        GameOfLifeLogic gameOflife = new GameOfLifeLogic(50, 50);
+        gameOflife.generateRandomBoard();
+        for (int i = 0; i < 10; i++) {
+            gameOflife.nextIteration();
+        }
+        gameOflife.setCellState(0, 0, true);
+        gameOflife.setCellState(49, 49, false);
+
+        DensityPyramid expected = new DensityPyramid(50, 50);
+        expected.rebuild(gameOflife.getCells());
+        DensityPyramid actual = gameOflife.getDensityPyramid();
+        for (int level = DensityPyramid.MIN_LEVEL; level <= actual.getMaxLevel(); level++) {
+            int blocks = (50 + (1 << level) - 1) >> level;
+            for (int i = 0; i < blocks; i++) {
+                for (int j = 0; j < blocks; j++) {
+                    assertEquals(expected.getCount(level, i, j), actual.getCount(level, i, j));
+                }
+            }
+        }
+        BoardSnapshot snapshot = gameOflife.snapshot();
+        assertEquals(snapshot.getPopulation(), actual.getCount(actual.getMaxLevel(), 0, 0));
+        snapshot.release();
+    }
+
+    /**
+     * A copy of the density pyramid should keep the counts of the generation it was taken at.
+     */
+    @Test
+    public void testDensityPyramidCopyIsUnaffectedByLaterGenerations() {
+        GameOfLifeLogic gameOflife = new GameOfLifeLogic(50, 50);
+        gameOflife.generateRandomBoard();
+        DensityPyramid copy = gameOflife.getDensityPyramid().copy();
+        BoardSnapshot snapshot = gameOflife.snapshot();
+        gameOflife.clearBoard();
+
+        assertEquals(0, gameOflife.getDensityPyramid().getPopulation());
+        assertEquals(snapshot.getPopulation(), copy.getPopulation());
+        assertEquals(gameOflife.getDensityPyramid().getMaxLevel(), copy.getMaxLevel());
+        snapshot.release();
+    }
+}
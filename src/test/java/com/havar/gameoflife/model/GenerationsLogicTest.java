@@ -0,0 +1,106 @@
+package com.havar.gameoflife.model;
+
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GenerationsLogicTest {
+    private GenerationsLogic gameOfLife;
+
+    @Before
+    public void setUp() {
+        gameOfLife = new GenerationsLogic(10, 10);
+        gameOfLife.setRule(GenerationsRule.parse(GenerationsRule.BRIANS_BRAIN, "Brian's Brain"));
+    }
+
+    /**
+     * Both notations should describe the same rule.
+     */
+    @Test
+    public void testParseNotations() {
+        GenerationsRule rule = GenerationsRule.parse("B2/S345/C4", null);
+        GenerationsRule golly = GenerationsRule.parse("345/2/4", null);
+        assertEquals(4, rule.getStateCount());
+        assertEquals(rule.getBirthMask(), golly.getBirthMask());
+        assertEquals(rule.getSurvivalMask(), golly.getSurvivalMask());
+        assertEquals(golly.getStateCount(), rule.getStateCount());
+    }
+
+    /**
+     * Rules with more than 128 states should report the high states as positive numbers, also through snapshots.
+     */
+    @Test
+    public void testHighStatesArePositive() {
+        gameOfLife.setRule(GenerationsRule.parse("/2/200", null));
+        gameOfLife.setCellState(5, 5, true);
+        for (int i = 0; i < 150; i++) {
+            gameOfLife.nextIteration();
+        }
+        assertEquals(151, gameOfLife.getState(5, 5));
+        BoardSnapshot snapshot = gameOfLife.snapshot();
+        assertEquals(151, snapshot.getState(5, 5));
+        assertEquals(200, snapshot.getStateCount());
+        snapshot.release();
+    }
+
+    /**
+     * In Brian's Brain every live cell dies, passes through the dying state and is dead after that.
+     */
+    @Test
+    public void testCellsDecay() {
+        gameOfLife.setCellState(5, 5, true);
+        gameOfLife.nextIteration();
+        assertEquals(2, gameOfLife.getState(5, 5));
+        assertFalse(gameOfLife.getCells()[5][5]);
+
+        gameOfLife.nextIteration();
+        assertEquals(0, gameOfLife.getState(5, 5));
+    }
+
+    /**
+     * Cells with two live neighbours are born, but dying cells neither count as neighbours nor can be born.
+     */
+    @Test
+    public void testDyingCellsAreNotNeighbours() {
+        gameOfLife.setCellState(4, 4, true);
+        gameOfLife.setCellState(4, 5, true);
+        gameOfLife.nextIteration();
+
+        // Both cells are dying, and the cells next to both of them are born.
+        assertEquals(2, gameOfLife.getState(4, 4));
+        assertEquals(1, gameOfLife.getState(3, 4));
+        assertEquals(1, gameOfLife.getState(5, 5));
+        assertEquals(0, gameOfLife.getState(4, 3));
+
+        gameOfLife.nextIteration();
+        assertEquals(0, gameOfLife.getState(4, 4));
+        assertEquals(2, gameOfLife.getState(3, 4));
+        assertEquals(1, gameOfLife.getState(2, 4));
+    }
+
+    /**
+     * A retained snapshot should keep its states while the board moves on and is edited.
+     */
+    @Test
+    public void testSnapshotStatesAreStable() {
+        gameOfLife.setCellState(5, 5, true);
+        gameOfLife.nextIteration();
+        BoardSnapshot snapshot = gameOfLife.snapshot();
+        assertTrue(snapshot.hasStates());
+        assertEquals(3, snapshot.getStateCount());
+
+        gameOfLife.setCellState(5, 5, true);
+        gameOfLife.nextIteration();
+        gameOfLife.nextIteration();
+        assertEquals(2, snapshot.getState(5, 5));
+        assertFalse(snapshot.isAlive(5, 5));
+
+        GenerationsLogic restored = new GenerationsLogic(10, 10);
+        restored.setRule(GenerationsRule.parse(GenerationsRule.BRIANS_BRAIN, null));
+        restored.restore(snapshot);
+        snapshot.release();
+        assertEquals(2, restored.getState(5, 5));
+    }
+}
@@ -0,0 +1,83 @@
+package com.havar.gameoflife.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LookAheadBufferTest {
+    private static final int DEPTH = 4;
+
+    /**
+     * Frames taken from the buffer should be the generations of the model in order, and the worker should stop once
+     * the ring is full.
+     */
+    @Test
+    public void testFramesFollowModel() throws Exception {
+        GameOfLifeLogic model = new GameOfLifeLogic(40, 40);
+        model.generateRandomBoard();
+        GameOfLifeLogic expected = copy(model);
+
+        try (LookAheadBuffer buffer = new LookAheadBuffer(model, DEPTH)) {
+            for (int i = 0; i <= 30; i++) {
+                BoardSnapshot frame = buffer.take();
+                assertEquals(i, frame.getGeneration());
+                assertArrayEquals(expected.getCells(), frame.copyCells());
+                frame.release();
+                expected.nextIteration();
+            }
+            waitForReadyFrames(buffer, DEPTH);
+            Thread.sleep(20);
+            assertEquals(DEPTH, buffer.getReadyFrames());
+            assertEquals(30 + DEPTH, model.getGeneration());
+        }
+    }
+
+    /**
+     * An edit should drop the frames computed ahead and apply to the generation on display, even when the worker is
+     * several generations further.
+     */
+    @Test
+    public void testEditRewindsToDisplayedFrame() throws Exception {
+        GameOfLifeLogic model = new GameOfLifeLogic(40, 40);
+        model.generateRandomBoard();
+        GameOfLifeLogic expected = copy(model);
+
+        try (LookAheadBuffer buffer = new LookAheadBuffer(model, DEPTH)) {
+            for (int i = 0; i <= 10; i++) {
+                buffer.take().release();
+            }
+            for (int i = 0; i < 10; i++) {
+                expected.nextIteration();
+            }
+            waitForReadyFrames(buffer, DEPTH);
+
+            buffer.edit(board -> board.setCellState(5, 5, true));
+            expected.setCellState(5, 5, true);
+            assertEquals(1, buffer.getInvalidations());
+
+            for (int i = 0; i < 20; i++) {
+                BoardSnapshot frame = buffer.take();
+                assertEquals(10 + i, frame.getGeneration());
+                assertArrayEquals(expected.getCells(), frame.copyCells());
+                frame.release();
+                expected.nextIteration();
+            }
+        }
+    }
+
+    private static GameOfLifeLogic copy(GameOfLifeLogic model) {
+        GameOfLifeLogic copy = new GameOfLifeLogic(model.getRows(), model.getColumns());
+        BoardSnapshot snapshot = model.snapshot();
+        copy.setCells(snapshot.copyCells());
+        snapshot.release();
+        return copy;
+    }
+
+    private static void waitForReadyFrames(LookAheadBuffer buffer, int frames) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (buffer.getReadyFrames() < frames && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(frames, buffer.getReadyFrames());
+    }
+}
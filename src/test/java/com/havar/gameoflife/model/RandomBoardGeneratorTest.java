@@ -0,0 +1,72 @@
+package com.havar.gameoflife.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class RandomBoardGeneratorTest {
+
+    /**
+     * The same seed should give the same board no matter how many threads generate it, and the packed and unpacked
+     * boards should hold the same cells.
+     */
+    @Test
+    public void testSeedGivesSameBoardForAnyThreadCount() throws Exception {
+        boolean[][] single = generate(new ForkJoinPool(1), 77, 100);
+        boolean[][] many = generate(new ForkJoinPool(4), 77, 100);
+        assertArrayEquals(single, many);
+        assertFalse(Arrays.deepEquals(single, generate(new ForkJoinPool(4), 78, 100)));
+
+        PackedBoard packed = new PackedBoard(77, 100);
+        new RandomBoardGenerator(42, 0.3).fill(packed);
+        assertArrayEquals(PackedBoard.of(single).getWords(), packed.getWords());
+
+        GameOfLifeLogic a = new GameOfLifeLogic(64, 64);
+        GameOfLifeLogic b = new GameOfLifeLogic(64, 64);
+        a.generateRandomBoard(7, 0.5);
+        b.generateRandomBoard(7, 0.5);
+        assertArrayEquals(a.getCells(), b.getCells());
+        BoardSnapshot snapshot = a.snapshot();
+        assertEquals(snapshot.getPopulation(), b.getDensityPyramid().getPopulation());
+        snapshot.release();
+    }
+
+    /**
+     * The share of live cells should follow the density.
+     */
+    @Test
+    public void testDensity() {
+        double[] densities = { 0, 0.1, 0.25, 0.5, 0.9, 1 };
+        for (double density : densities) {
+            boolean[][] cells = new boolean[256][256];
+            new RandomBoardGenerator(density > 0.3 ? 1 : 2, density).fill(cells);
+            int alive = 0;
+            for (boolean[] row : cells) {
+                for (boolean cell : row) {
+                    alive += cell ? 1 : 0;
+                }
+            }
+            assertEquals(density, alive / (256.0 * 256.0), 0.01);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDensity() {
+        new RandomBoardGenerator(1, 1.5);
+    }
+
+    private static boolean[][] generate(ForkJoinPool pool, int rows, int columns) throws Exception {
+        try {
+            return pool.submit(() -> {
+                boolean[][] cells = new boolean[rows][columns];
+                new RandomBoardGenerator(42, 0.3).fill(cells);
+                return cells;
+            }).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
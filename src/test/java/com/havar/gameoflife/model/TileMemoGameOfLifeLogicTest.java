@@ -0,0 +1,72 @@
+package com.havar.gameoflife.model;
+
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithBordersStrategy;
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithWrapAroundStrategy;
+import com.havar.gameoflife.model.countstratgegies.NeighborCountingStrategy;
+import com.havar.gameoflife.model.rules.GenerationsRule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TileMemoGameOfLifeLogicTest {
+
+    /**
+     * Looking tiles up should give exactly the same generations as computing them, with and without wrap around, on
+     * a board that does not divide into whole tiles.
+     */
+    @Test
+    public void testMatchesGameOfLifeLogic() {
+        NeighborCountingStrategy[] strategies = { new CountNeighborsWithBordersStrategy(),
+                new CountNeighborsWithWrapAroundStrategy() };
+        for (NeighborCountingStrategy strategy : strategies) {
+            GameOfLifeLogic expected = new GameOfLifeLogic(50, 50);
+            expected.setNeighborCountingStrategy(strategy);
+            expected.generateRandomBoard();
+            TileMemoGameOfLifeLogic memo = new TileMemoGameOfLifeLogic(50, 50, 64);
+            memo.setNeighborCountingStrategy(strategy);
+            BoardSnapshot initial = expected.snapshot();
+            memo.setCells(initial.copyCells());
+            initial.release();
+
+            for (int generation = 1; generation <= 150; generation++) {
+                if (generation == 100) {
+                    expected.setRule(GenerationsRule.parse("B36/S23/C2", "HighLife"));
+                    memo.setRule(GenerationsRule.parse("B36/S23/C2", "HighLife"));
+                }
+                expected.nextIteration();
+                BoardSnapshot held = generation % 7 == 0 ? memo.snapshot() : null;
+                memo.nextIteration();
+                if (generation % 40 == 0) {
+                    expected.setCellState(49, 0, true);
+                    memo.setCellState(49, 0, true);
+                }
+                if (held != null) {
+                    held.release();
+                }
+                assertArrayEquals(expected.getCells(), memo.getCells());
+                assertEquals(expected.getDensityPyramid().getPopulation(), memo.getDensityPyramid().getPopulation());
+            }
+        }
+    }
+
+    /**
+     * A board tiled with the same oscillator should be stepped almost entirely from the cache.
+     */
+    @Test
+    public void testRepetitiveBoardHitsCache() {
+        TileMemoGameOfLifeLogic memo = new TileMemoGameOfLifeLogic(128, 128);
+        memo.setNeighborCountingStrategy(new CountNeighborsWithWrapAroundStrategy());
+        for (int i = 0; i < 128; i += 8) {
+            for (int j = 0; j < 128; j += 8) {
+                memo.setCellState(i + 2, j + 3, true);
+                memo.setCellState(i + 3, j + 3, true);
+                memo.setCellState(i + 4, j + 3, true);
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            memo.nextIteration();
+        }
+        assertEquals(3 * 16 * 16, memo.getDensityPyramid().getPopulation());
+        assertTrue(memo.getTileCache().getHitRate() > 0.99);
+    }
+}
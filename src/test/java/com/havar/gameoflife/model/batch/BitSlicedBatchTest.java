@@ -0,0 +1,72 @@
+package com.havar.gameoflife.model.batch;
+
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import com.havar.gameoflife.model.countstratgegies.CountNeighborsWithWrapAroundStrategy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BitSlicedBatchTest {
+
+    /**
+     * Every lane should evolve exactly like its own GameOfLifeLogic instance, with and without wrap around.
+     */
+    @Test
+    public void testLanesMatchGameOfLifeLogic() {
+        for (boolean wrapAround : new boolean[] { false, true }) {
+            BitSlicedBatch batch = new BitSlicedBatch(24, 24, wrapAround);
+            GameOfLifeLogic[] boards = new GameOfLifeLogic[BitSlicedBatch.LANES];
+            for (int lane = 0; lane < boards.length; lane++) {
+                boards[lane] = new GameOfLifeLogic(24, 24);
+                if (wrapAround) {
+                    boards[lane].setNeighborCountingStrategy(new CountNeighborsWithWrapAroundStrategy());
+                }
+                boards[lane].generateRandomBoard();
+                batch.load(lane, boards[lane].getCells());
+            }
+
+            for (int generation = 0; generation < 30; generation++) {
+                batch.step();
+                for (GameOfLifeLogic board : boards) {
+                    board.nextIteration();
+                }
+            }
+            for (int lane = 0; lane < boards.length; lane++) {
+                assertArrayEquals(boards[lane].getCells(), batch.extract(lane));
+            }
+        }
+    }
+
+    /**
+     * A block is stable right away, a blinker after two steps, and a glider never. Loading a new board into a lane
+     * clears its stable flag.
+     */
+    @Test
+    public void testStableLanesAndRefill() {
+        BitSlicedBatch batch = new BitSlicedBatch(16, 16, false);
+        batch.load(0, board(new int[][] { { 4, 4 }, { 4, 5 }, { 5, 4 }, { 5, 5 } }));
+        batch.load(1, board(new int[][] { { 4, 3 }, { 4, 4 }, { 4, 5 } }));
+        batch.load(2, board(new int[][] { { 1, 0 }, { 2, 1 }, { 0, 2 }, { 1, 2 }, { 2, 2 } }));
+
+        batch.step();
+        assertEquals(0b001L, batch.getStableLanes());
+        batch.step();
+        assertEquals(0b011L, batch.getStableLanes());
+        assertEquals(3, batch.getPopulation(1));
+
+        batch.load(0, board(new int[][] { { 4, 3 }, { 4, 4 }, { 4, 5 } }));
+        assertEquals(0b010L, batch.getStableLanes());
+        assertEquals(0, batch.getLaneGeneration(0));
+        batch.step(2);
+        assertEquals(0b011L, batch.getStableLanes());
+        assertEquals(5, batch.getPopulation(2));
+    }
+
+    private static boolean[][] board(int[][] liveCells) {
+        boolean[][] cells = new boolean[16][16];
+        for (int[] cell : liveCells) {
+            cells[cell[0]][cell[1]] = true;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,92 @@
+package com.havar.gameoflife.model.census;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import com.havar.gameoflife.model.PackedBoard;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PatternCensusTest {
+
+    private static void place(PackedBoard board, int row, int col, String... pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            for (int j = 0; j < pattern[i].length(); j++) {
+                if (pattern[i].charAt(j) == 'X') {
+                    board.set(row + i, col + j, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Known objects should be recognised in any orientation and phase.
+     */
+    @Test
+    public void testClassifiesKnownObjects() {
+        PackedBoard board = new PackedBoard(100, 150);
+        place(board, 1, 1, "XX", "XX");
+        place(board, 1, 60, "XX", "XX"); // Crosses no word boundary, but a different column
+        place(board, 10, 62, "XXXX"); // Crosses a word boundary, unknown
+        place(board, 20, 20, "X", "X", "X"); // Vertical blinker
+        place(board, 30, 30, "XXX", "X..", ".X."); // Rotated glider
+        place(board, 40, 40, ".XX.", "X..X", ".XX."); // Beehive
+        place(board, 50, 100, "X.X", ".XX", ".X."); // Glider in another phase
+
+        CensusResult result = new PatternCensus().classify(board, 7);
+        assertEquals(7, result.getGeneration());
+        assertEquals(7, result.getObjectCount());
+        assertEquals(2, result.getCount("block"));
+        assertEquals(1, result.getCount("blinker"));
+        assertEquals(2, result.getCount("glider"));
+        assertEquals(1, result.getCount("beehive"));
+        assertEquals(1, result.getCount(PatternCensus.UNKNOWN));
+    }
+
+    /**
+     * Cells that only touch diagonally still belong to the same object.
+     */
+    @Test
+    public void testDiagonalNeighboursAreConnected() {
+        PackedBoard board = new PackedBoard(10, 10);
+        place(board, 2, 2, "X..", ".X.", "..X");
+        assertEquals(1, PatternCensus.findObjects(board).size());
+    }
+
+    /**
+     * Every phase of a lightweight spaceship should be counted as one, including the phases with a cell that is
+     * separated from the rest by a dead cell.
+     */
+    @Test
+    public void testClassifiesEveryPhaseOfLightweightSpaceship() {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(30, 30);
+        String[] lwss = { ".X..X", "X....", "X...X", "XXXX." };
+        for (int i = 0; i < lwss.length; i++) {
+            for (int j = 0; j < lwss[i].length(); j++) {
+                gameOfLife.setCellState(i + 12, j + 15, lwss[i].charAt(j) == 'X');
+            }
+        }
+        PatternCensus census = new PatternCensus();
+        for (int phase = 0; phase < 4; phase++) {
+            CensusResult result = census.classify(PackedBoard.of(gameOfLife.getCells()), phase);
+            assertEquals("Phase " + phase, 1, result.getObjectCount());
+            assertEquals("Phase " + phase, 1, result.getCount("lwss"));
+            gameOfLife.nextIteration();
+        }
+    }
+
+    /**
+     * The background census should give the same answer as the direct one.
+     */
+    @Test
+    public void testSubmitRunsInBackground() throws Exception {
+        boolean[][] cells = new boolean[20][20];
+        cells[5][5] = cells[5][6] = cells[6][5] = cells[6][6] = true;
+        BoardSnapshot snapshot = new BoardSnapshot(cells, 3);
+
+        CensusResult result = new PatternCensus().submit(snapshot).get();
+        snapshot.release();
+        assertEquals(1, result.getCount("block"));
+        assertEquals(3, result.getGeneration());
+    }
+}
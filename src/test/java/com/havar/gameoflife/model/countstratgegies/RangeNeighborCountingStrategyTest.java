@@ -0,0 +1,91 @@
+package com.havar.gameoflife.model.countstratgegies;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RangeNeighborCountingStrategyTest {
+
+    private static int bruteForce(boolean[][] cells, int row, int col, Neighborhood neighborhood, int range, boolean wrapAround) {
+        int rows = cells.length;
+        int columns = cells[0].length;
+        int count = 0;
+        for (int a = -range; a <= range; a++) {
+            for (int b = -range; b <= range; b++) {
+                if ((a == 0 && b == 0) || !neighborhood.contains(a, b, range)) {
+                    continue;
+                }
+                int r = row + a;
+                int c = col + b;
+                if (wrapAround) {
+                    r = Math.floorMod(r, rows);
+                    c = Math.floorMod(c, columns);
+                } else if (r < 0 || r >= rows || c < 0 || c >= columns) {
+                    continue;
+                }
+                if (cells[r][c]) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Every neighbourhood, range and edge setting should match counting cell by cell.
+     */
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(31);
+        boolean[][] cells = new boolean[23][17];
+        for (boolean[] row : cells) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextInt(3) == 0;
+            }
+        }
+
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            for (int range = 1; range <= 5; range++) {
+                for (boolean wrapAround : new boolean[] {false, true}) {
+                    RangeNeighborCountingStrategy strategy = new RangeNeighborCountingStrategy(neighborhood, range, wrapAround);
+                    strategy.prepare(cells, 23, 17);
+                    for (int i = 0; i < 23; i++) {
+                        for (int j = 0; j < 17; j++) {
+                            assertEquals(neighborhood + " r" + range + " wrap " + wrapAround + " at " + i + "," + j,
+                                    bruteForce(cells, i, j, neighborhood, range, wrapAround),
+                                    strategy.countNeighbors(i, j, cells, 23, 17));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Range one Moore should agree with the original 3x3 strategies.
+     */
+    @Test
+    public void testRangeOneMooreMatchesExistingStrategies() {
+        boolean[][] cells = {
+                {true,  true,  false, false, true},
+                {false, true,  true,  true,  false},
+                {false, true,  false, true,  true},
+                {false, true,  true,  true,  false},
+                {true,  false, false, false, false}
+        };
+        RangeNeighborCountingStrategy borders = new RangeNeighborCountingStrategy(Neighborhood.MOORE, 1, false);
+        RangeNeighborCountingStrategy wrapping = new RangeNeighborCountingStrategy(Neighborhood.MOORE, 1, true);
+        borders.prepare(cells, 5, 5);
+        wrapping.prepare(cells, 5, 5);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                assertEquals(new CountNeighborsWithBordersStrategy().countNeighbors(i, j, cells, 5, 5),
+                        borders.countNeighbors(i, j, cells, 5, 5));
+                assertEquals(new CountNeighborsWithWrapAroundStrategy().countNeighbors(i, j, cells, 5, 5),
+                        wrapping.countNeighbors(i, j, cells, 5, 5));
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.havar.gameoflife.model.history;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GenerationHistoryTest {
+
+    private static List<boolean[][]> run(GameOfLifeLogic gameOfLife, GenerationHistory history, int generations) {
+        List<boolean[][]> expected = new ArrayList<>();
+        for (int i = 0; i < generations; i++) {
+            BoardSnapshot snapshot = gameOfLife.snapshot();
+            history.record(snapshot);
+            expected.add(snapshot.copyCells());
+            snapshot.release();
+            gameOfLife.nextIteration();
+        }
+        return expected;
+    }
+
+    /**
+     * Every recorded generation should be reconstructed exactly, in any order.
+     */
+    @Test
+    public void testRandomAccessMatchesRecordedGenerations() {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(70, 70);
+        gameOfLife.generateRandomBoard();
+        GenerationHistory history = new GenerationHistory(8, Long.MAX_VALUE);
+        List<boolean[][]> expected = run(gameOfLife, history, 40);
+
+        int[] order = {39, 0, 17, 16, 15, 24, 25, 8, 7, 38, 3};
+        for (int generation : order) {
+            BoardSnapshot snapshot = history.get(generation);
+            assertArrayEquals(expected.get(generation), snapshot.copyCells());
+        }
+        // Scrub backwards one step at a time.
+        for (int generation = 39; generation >= 0; generation--) {
+            assertArrayEquals(expected.get(generation), history.get(generation).copyCells());
+        }
+    }
+
+    /**
+     * With a small budget the oldest generations are evicted, but the newest remain available.
+     */
+    @Test
+    public void testEvictsOldestGenerationsWhenOverBudget() {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(64, 64);
+        gameOfLife.generateRandomBoard();
+        GenerationHistory history = new GenerationHistory(4, 4096);
+        List<boolean[][]> expected = run(gameOfLife, history, 100);
+
+        // A keyframe group of this board fits in the budget many times, so the budget holds exactly.
+        assertTrue(history.getMemoryUsage() <= 4096);
+        assertTrue(history.size() < 100);
+
+        long oldest = history.getOldestGeneration();
+        assertTrue(oldest > 0);
+        assertNull(history.get(0));
+        assertNull(history.get(oldest - 1));
+        assertArrayEquals(expected.get((int) oldest), history.get(oldest).copyCells());
+
+        assertEquals(99, history.getNewestGeneration());
+        assertArrayEquals(expected.get(99), history.get(99).copyCells());
+    }
+
+    /**
+     * Recording an earlier generation again replaces it and drops the generations after it.
+     */
+    @Test
+    public void testRecordingEarlierGenerationTruncates() {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(10, 10);
+        GenerationHistory history = new GenerationHistory(4, Long.MAX_VALUE);
+        run(gameOfLife, history, 10);
+
+        boolean[][] edited = new boolean[10][10];
+        edited[5][5] = true;
+        history.record(new BoardSnapshot(edited, 6));
+
+        assertEquals(6, history.getNewestGeneration());
+        assertEquals(7, history.size());
+        assertTrue(history.get(6).isAlive(5, 5));
+        assertEquals(5, history.getPreviousGeneration(6));
+        assertEquals(-1, history.getNextGeneration(6));
+    }
+}
@@ -0,0 +1,51 @@
+package com.havar.gameoflife.model.rules;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import com.havar.gameoflife.model.countstratgegies.Neighborhood;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LargerThanLifeRuleTest {
+
+    @Test
+    public void testParseBosco() {
+        LargerThanLifeRule rule = LargerThanLifeRule.parse(LargerThanLifeRule.BOSCO, "Bosco's Rule");
+        assertEquals(5, rule.getRange());
+        assertEquals(Neighborhood.MOORE, rule.getNeighborhood());
+        assertEquals("Bosco's Rule", rule.toString());
+
+        // M1 includes the cell itself, so a live cell with 33 neighbours counts 34 and survives.
+        assertTrue(rule.nextState(true, 33));
+        assertFalse(rule.nextState(true, 32));
+        assertTrue(rule.nextState(false, 34));
+        assertFalse(rule.nextState(false, 46));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownPart() {
+        LargerThanLifeRule.parse("R2,X1,S1..2,B3", null);
+    }
+
+    /**
+     * Range one Moore with S23 B3 and no centre is Conway's Game of Life.
+     */
+    @Test
+    public void testRangeOneBehavesLikeConway() {
+        GameOfLifeLogic conway = new GameOfLifeLogic(30, 30);
+        conway.generateRandomBoard();
+        GameOfLifeLogic larger = new GameOfLifeLogic(30, 30);
+        BoardSnapshot snapshot = conway.snapshot();
+        larger.setCells(snapshot.copyCells());
+        snapshot.release();
+
+        LargerThanLifeRule rule = LargerThanLifeRule.parse("R1,C0,M0,S2..3,B3..3,NM", null);
+        larger.setRule(rule);
+        larger.setNeighborCountingStrategy(rule.createNeighborCountingStrategy(false));
+
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(conway.nextIteration(), larger.nextIteration());
+        }
+    }
+}
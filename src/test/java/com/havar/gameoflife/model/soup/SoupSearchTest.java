@@ -0,0 +1,72 @@
+package com.havar.gameoflife.model.soup;
+
+import com.havar.gameoflife.model.BitParallelLife;
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import com.havar.gameoflife.model.PackedBoard;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SoupSearchTest {
+
+    /**
+     * The bit-parallel step should match the regular engine on a bounded board.
+     */
+    @Test
+    public void testBitParallelStepMatchesLogic() {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(64, 64);
+        gameOfLife.generateRandomBoard();
+        long[] rows = PackedBoard.of(gameOfLife.getCells()).getWords().clone();
+        long[] next = new long[64];
+
+        for (int generation = 0; generation < 20; generation++) {
+            BitParallelLife.stepRows(rows, next, 64, -1L);
+            long[] swap = rows;
+            rows = next;
+            next = swap;
+            gameOfLife.nextIteration();
+            assertArrayEquals(PackedBoard.of(gameOfLife.getCells()).getWords(), rows);
+        }
+    }
+
+    /**
+     * The same seed should record the same soups no matter how many threads are used.
+     */
+    @Test
+    public void testResultsDoNotDependOnThreadCount() throws InterruptedException {
+        List<SoupResult> single = new SoupSearch(16, 2000, 300, 1).run(42L, 3000);
+        List<SoupResult> parallel = new SoupSearch(16, 2000, 300, 4).run(42L, 3000);
+
+        assertFalse(single.isEmpty());
+        assertEquals(single.size(), parallel.size());
+        for (int i = 0; i < single.size(); i++) {
+            assertEquals(single.get(i).getIndex(), parallel.get(i).getIndex());
+            assertEquals(single.get(i).getLifespan(), parallel.get(i).getLifespan());
+            assertEquals(single.get(i).getPeriod(), parallel.get(i).getPeriod());
+        }
+    }
+
+    /**
+     * A recorded soup should be reproducible from its seed.
+     */
+    @Test
+    public void testRecordedSoupCanBeRecreated() throws InterruptedException {
+        SoupSearch search = new SoupSearch(16, 2000, 300, 2);
+        SoupResult result = search.run(7L, 2000).get(0);
+
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(64, 64);
+        gameOfLife.setCells(search.createSoup(result.getSeed()));
+        for (int i = 0; i < result.getLifespan() + result.getPeriod(); i++) {
+            gameOfLife.nextIteration();
+        }
+        int population = 0;
+        for (boolean[] row : gameOfLife.getCells()) {
+            for (boolean cell : row) {
+                population += cell ? 1 : 0;
+            }
+        }
+        assertEquals(result.getFinalPopulation(), population);
+    }
+}
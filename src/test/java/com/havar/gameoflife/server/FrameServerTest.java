@@ -0,0 +1,131 @@
+package com.havar.gameoflife.server;
+
+import com.havar.gameoflife.model.BoardSnapshot;
+import com.havar.gameoflife.model.GameOfLifeLogic;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class FrameServerTest {
+    private FrameServer server;
+    private FrameClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FrameServer(0);
+        client = new FrameClient("localhost", server.getPort());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getClientCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, server.getClientCount());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    /**
+     * Keyframes followed by deltas should reproduce the subscribed region of every generation.
+     */
+    @Test
+    public void testDeltasReproduceRegion() throws IOException {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(60, 60);
+        gameOfLife.generateRandomBoard();
+        client.subscribe(10, 5, 40, 30, 1);
+
+        int deltas = 0;
+        for (int generation = 0; generation < 50; generation++) {
+            publish(gameOfLife);
+            boolean keyframe = client.readFrame();
+            if (client.getFrameWidth() != 40) {
+                continue; // Sent before the subscription arrived
+            }
+            deltas += keyframe ? 0 : 1;
+            assertEquals(gameOfLife.getGeneration(), client.getGeneration());
+            assertArrayEquals(expectedFrame(gameOfLife, 10, 5, 40, 30, 1), client.getCells());
+            gameOfLife.nextIteration();
+        }
+        assertTrue(deltas > 0);
+    }
+
+    /**
+     * A client that does not keep up should skip generations and still end up with the newest one, downscaled.
+     */
+    @Test
+    public void testSlowClientSkipsToNewestFrame() throws IOException {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(200, 200);
+        gameOfLife.generateRandomBoard();
+        client.subscribe(0, 0, 200, 200, 4);
+        do {
+            publish(gameOfLife);
+            client.readFrame();
+        } while (client.getFrameWidth() != 50);
+        long framesBefore = client.getFramesReceived();
+
+        for (int generation = 0; generation < 200; generation++) {
+            gameOfLife.nextIteration();
+            publish(gameOfLife);
+        }
+        while (client.getGeneration() != gameOfLife.getGeneration()) {
+            client.readFrame();
+        }
+        assertArrayEquals(expectedFrame(gameOfLife, 0, 0, 200, 200, 4), client.getCells());
+        // Every generation was either sent or skipped.
+        assertEquals(200, client.getFramesReceived() - framesBefore + server.getSkippedFrames());
+    }
+
+    /**
+     * A region reaching past the board should be cut to the part on the board.
+     */
+    @Test
+    public void testRegionIsClampedToBoard() throws IOException {
+        GameOfLifeLogic gameOfLife = new GameOfLifeLogic(60, 60);
+        gameOfLife.generateRandomBoard();
+        client.subscribe(40, 50, 1000, 1000, 2);
+        do {
+            publish(gameOfLife);
+            client.readFrame();
+        } while (client.getFrameWidth() != 10);
+        assertArrayEquals(expectedFrame(gameOfLife, 40, 50, 20, 10, 2), client.getCells());
+    }
+
+    /**
+     * A subscription for more cells than a frame may have should disconnect the viewer instead of being served.
+     */
+    @Test
+    public void testOversizedSubscriptionDisconnects() throws Exception {
+        client.subscribe(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, 1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getClientCount() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getClientCount());
+    }
+
+    private void publish(GameOfLifeLogic gameOfLife) {
+        BoardSnapshot snapshot = gameOfLife.snapshot();
+        server.publish(snapshot);
+        snapshot.release();
+    }
+
+    private static boolean[][] expectedFrame(GameOfLifeLogic gameOfLife, int x, int y, int width, int height,
+            int scale) {
+        boolean[][] cells = gameOfLife.getCells();
+        boolean[][] frame = new boolean[(width + scale - 1) / scale][(height + scale - 1) / scale];
+        for (int i = x; i < x + width; i++) {
+            for (int j = y; j < y + height; j++) {
+                if (cells[i][j]) {
+                    frame[(i - x) / scale][(j - y) / scale] = true;
+                }
+            }
+        }
+        return frame;
+    }
+}